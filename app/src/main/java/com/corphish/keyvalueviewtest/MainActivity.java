@@ -4,18 +4,28 @@ import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 
 import com.corphish.widgets.BottomSheetAlertDialog;
+import com.corphish.widgets.MethodForValueCache;
+import com.corphish.widgets.annotations.KeyValueSource;
+import com.corphish.widgets.generated.KeyValueSources;
 
 public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        MethodForValueCache.setRegistry(new KeyValueSources());
         setContentView(R.layout.activity_main);
 
-        BottomSheetAlertDialog.Builder bottomSheetAlertDialog = new BottomSheetAlertDialog.Builder(this);
+        // Parts which are not set are hidden
+        BottomSheetAlertDialog.Builder bottomSheetAlertDialog = new BottomSheetAlertDialog.Builder(this)
+                .setTitle(R.string.dialog_title)
+                .setMessage(R.string.dialog_message)
+                .setPositiveButton(android.R.string.ok, null)
+                .setNegativeButton(android.R.string.cancel, null);
         bottomSheetAlertDialog.show();
     }
 
+    @KeyValueSource
     public String getText() {
         return "Success";
     }
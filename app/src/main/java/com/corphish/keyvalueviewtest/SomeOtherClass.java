@@ -1,10 +1,13 @@
 package com.corphish.keyvalueviewtest;
 
+import com.corphish.widgets.annotations.KeyValueSource;
+
 /**
  * Created by avinabadalal on 12/01/18.
  */
 
 public class SomeOtherClass {
+    @KeyValueSource
     public static String getSomeText() {
         return "Success confirmed!";
     }
@@ -0,0 +1,181 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.benchmark;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal JMH style harness, used as a ClassRule
+ * JMH itself cannot run the benchmarks, as the widgets need the Robolectric runner and its
+ * sandboxed class loader, so this does the same in a simpler way. Each benchmark is warmed up
+ * for a few iterations, then measured for a few more, each iteration running the operation
+ * for a fixed time. Results of a class are written as JSON to benchmark.reportDir, in a format
+ * close to the one of JMH.
+ */
+
+public class BenchmarkReport implements TestRule {
+    /**
+     * Operation being measured
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once
+         * @return Anything, it is consumed so that the work is not optimized away
+         * @throws Exception Whatever the operation throws
+         */
+        Object run() throws Exception;
+    }
+
+    private static class Result {
+        String name;
+        double score, error;
+        long operations;
+        double[] samples;
+    }
+
+    // Consumes the results of the operations
+    private static volatile Object sink;
+
+    private final int warmupIterations = Integer.getInteger("benchmark.warmupIterations", 3);
+    private final int iterations = Integer.getInteger("benchmark.iterations", 5);
+    private final long iterationNanos = Long.getLong("benchmark.iterationMillis", 200) * 1000000L;
+
+    private final List<Result> results = new ArrayList<>();
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                try {
+                    base.evaluate();
+                } finally {
+                    write(description.getTestClass().getName());
+                }
+            }
+        };
+    }
+
+    /**
+     * Measures the average time of the operation
+     * @param name Benchmark name
+     * @param operation Operation
+     * @return Average time in nanoseconds per operation
+     * @throws Exception Whatever the operation throws
+     */
+    public double measure(String name, Operation operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(operation);
+        }
+
+        Result result = new Result();
+        result.name = name;
+        result.samples = new double[iterations];
+
+        for (int i = 0; i < iterations; i++) {
+            long[] iteration = iterate(operation);
+            result.samples[i] = (double) iteration[1] / iteration[0];
+            result.operations += iteration[0];
+        }
+
+        double sum = 0;
+        for (double sample : result.samples) sum += sample;
+        result.score = sum / iterations;
+
+        double variance = 0;
+        for (double sample : result.samples) variance += (sample - result.score) * (sample - result.score);
+        result.error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+        synchronized (results) {
+            results.add(result);
+        }
+        System.out.println(String.format(Locale.US, "%-60s %12.1f +- %10.1f ns/op", name, result.score, result.error));
+
+        return result.score;
+    }
+
+    /**
+     * Runs the operation for one iteration
+     * @return Number of operations and the time they took in nanoseconds
+     */
+    private long[] iterate(Operation operation) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+
+        do {
+            sink = operation.run();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+
+        return new long[] {operations, elapsed};
+    }
+
+    private void write(String className) throws IOException {
+        String reportDir = System.getProperty("benchmark.reportDir");
+        if (reportDir == null || results.isEmpty()) return;
+
+        File dir = new File(reportDir);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Could not create " + dir);
+
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append("  {\n")
+                    .append("    \"benchmark\": \"").append(className).append('.').append(result.name).append("\",\n")
+                    .append("    \"mode\": \"avgt\",\n")
+                    .append("    \"warmupIterations\": ").append(warmupIterations).append(",\n")
+                    .append("    \"measurementIterations\": ").append(iterations).append(",\n")
+                    .append("    \"operations\": ").append(result.operations).append(",\n")
+                    .append("    \"primaryMetric\": {\n")
+                    .append("      \"score\": ").append(format(result.score)).append(",\n")
+                    .append("      \"scoreError\": ").append(format(result.error)).append(",\n")
+                    .append("      \"scoreUnit\": \"ns/op\",\n")
+                    .append("      \"rawData\": [");
+            for (int j = 0; j < result.samples.length; j++) {
+                if (j > 0) json.append(", ");
+                json.append(format(result.samples[j]));
+            }
+            json.append("]\n    }\n  }").append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("]\n");
+
+        Writer writer = new FileWriter(new File(dir, className + ".json"));
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+}
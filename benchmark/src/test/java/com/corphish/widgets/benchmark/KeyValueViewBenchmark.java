@@ -0,0 +1,211 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.benchmark;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import com.corphish.widgets.FlatKeyValueView;
+import com.corphish.widgets.KeyValueView;
+import com.corphish.widgets.MethodForValueCache;
+import com.corphish.widgets.R;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Benchmarks of the hot paths of KeyValueView and FlatKeyValueView
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class KeyValueViewBenchmark {
+    @ClassRule
+    public static final BenchmarkReport report = new BenchmarkReport();
+
+    private static final int ROWS = 20;
+
+    private Context context;
+    private AttributeSet attributes, methodAttributes;
+
+    /**
+     * Context providing the value used by app:methodForValue
+     */
+    public static class SourceContext extends ContextThemeWrapper {
+        public SourceContext(Context base) {
+            super(base, android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+        }
+
+        public String getValue() {
+            return "Value";
+        }
+    }
+
+    @Before
+    public void setUp() {
+        context = new SourceContext(RuntimeEnvironment.application);
+
+        attributes = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.keyText, "Key")
+                .addAttribute(R.attr.valueText, "Value")
+                .addAttribute(R.attr.keySize, "16sp")
+                .addAttribute(R.attr.valueSize, "14sp")
+                .addAttribute(R.attr.keyStyle, "bold")
+                .addAttribute(R.attr.absoluteSpacing, "4dp")
+                .build();
+
+        methodAttributes = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.keyText, "Key")
+                .addAttribute(R.attr.methodForValue, "getValue")
+                .build();
+    }
+
+    @Test
+    public void construction() throws Exception {
+        report.measure("constructWithoutAttributes", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return new KeyValueView(context);
+            }
+        });
+
+        report.measure("constructWithAttributes", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return new KeyValueView(context, attributes);
+            }
+        });
+
+        report.measure("constructFlatWithAttributes", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return new FlatKeyValueView(context, attributes);
+            }
+        });
+    }
+
+    @Test
+    public void methodForValue() throws Exception {
+        report.measure("methodForValueCold", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                MethodForValueCache.clear();
+                return new KeyValueView(context, methodAttributes);
+            }
+        });
+
+        MethodForValueCache.clear();
+        report.measure("methodForValueCached", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return new KeyValueView(context, methodAttributes);
+            }
+        });
+    }
+
+    @Test
+    public void setters() throws Exception {
+        final KeyValueView keyValueView = new KeyValueView(context, attributes);
+
+        report.measure("settersOneByOne", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                keyValueView.setKeyText("Key");
+                keyValueView.setValueText("Value");
+                keyValueView.setKeySize(16);
+                keyValueView.setValueSize(14);
+                keyValueView.setKeyTextColor(0xff000000);
+                keyValueView.setValueTextColor(0xff757575);
+                keyValueView.setAbsoluteSpacing(4);
+                return keyValueView;
+            }
+        });
+
+        report.measure("settersEditor", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                keyValueView.edit()
+                        .setKeyText("Key")
+                        .setValueText("Value")
+                        .setKeySize(16)
+                        .setValueSize(14)
+                        .setKeyTextColor(0xff000000)
+                        .setValueTextColor(0xff757575)
+                        .setAbsoluteSpacing(4)
+                        .apply();
+                return keyValueView;
+            }
+        });
+    }
+
+    @Test
+    public void measureAndLayout() throws Exception {
+        final LinearLayout list = new LinearLayout(context);
+        list.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < ROWS; i++) list.addView(new KeyValueView(context, attributes));
+
+        final LinearLayout flatList = new LinearLayout(context);
+        flatList.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < ROWS; i++) flatList.addView(new FlatKeyValueView(context, attributes));
+
+        report.measure("measureAndLayout" + ROWS + "Rows", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return layout(list);
+            }
+        });
+
+        report.measure("measureAndLayout" + ROWS + "FlatRows", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return layout(flatList);
+            }
+        });
+    }
+
+    /**
+     * Forces a full measure and layout pass, as if every view requested one
+     */
+    static View layout(View view) {
+        invalidateLayout(view);
+
+        int width = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int height = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(width, height);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+
+        return view;
+    }
+
+    private static void invalidateLayout(View view) {
+        view.forceLayout();
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) invalidateLayout(viewGroup.getChildAt(i));
+        }
+    }
+}
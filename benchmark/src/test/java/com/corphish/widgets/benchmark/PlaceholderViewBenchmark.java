@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.benchmark;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.ContextThemeWrapper;
+
+import com.corphish.widgets.PlaceholderView;
+import com.corphish.widgets.R;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Benchmarks of the hot paths of PlaceholderView
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class PlaceholderViewBenchmark {
+    @ClassRule
+    public static final BenchmarkReport report = new BenchmarkReport();
+
+    private Context context;
+    private AttributeSet attributes, deferredAttributes;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+
+        attributes = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.titleText, "Nothing here")
+                .addAttribute(R.attr.descriptionText, "Items you add will show up here")
+                .addAttribute(R.attr.titleSize, "20sp")
+                .addAttribute(R.attr.titleStyle, "bold")
+                .build();
+
+        deferredAttributes = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.titleText, "Nothing here")
+                .addAttribute(R.attr.descriptionText, "Items you add will show up here")
+                .addAttribute(R.attr.deferInflation, "true")
+                .build();
+    }
+
+    @Test
+    public void construction() throws Exception {
+        report.measure("constructWithAttributes", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return new PlaceholderView(context, attributes);
+            }
+        });
+
+        report.measure("constructDeferred", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return new PlaceholderView(context, deferredAttributes);
+            }
+        });
+    }
+
+    @Test
+    public void measureAndLayout() throws Exception {
+        final PlaceholderView placeholderView = new PlaceholderView(context, attributes);
+        placeholderView.setImageResourceId(android.R.drawable.ic_dialog_info);
+
+        report.measure("measureAndLayout", new BenchmarkReport.Operation() {
+            @Override
+            public Object run() {
+                return KeyValueViewBenchmark.layout(placeholderView);
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field or getter of a model shown as a key value row
+ * The widgets-compiler annotation processor generates a KeyValueBinder named after the model,
+ * like Product_KeyValueBinder, which reads the marked members directly, without reflection.
+ * Fields must not be private, getters must not be private and must take no arguments.
+ * Rows are in the order the members are declared in, unless order is given.
+ */
+
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface KeyValue {
+    /**
+     * String resource used as the key, like R.string.price
+     * @return String resource id, 0 to use key instead
+     */
+    int label() default 0;
+
+    /**
+     * Key used if there is no label
+     * @return Key, empty to use the name of the field or getter
+     */
+    String key() default "";
+
+    /**
+     * Position of the row, rows with the same order keep the order they are declared in
+     * @return Order
+     */
+    int order() default 0;
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.annotations;
+
+/**
+ * Reads the rows of a model out of the members marked with KeyValue
+ * An implementation of it is generated per model by the widgets-compiler annotation processor
+ * @param <T> Model
+ */
+
+public interface KeyValueBinder<T> {
+    /**
+     * Number of rows of the model
+     * @return Row count
+     */
+    int getRowCount();
+
+    /**
+     * String resource used as the key of a row
+     * @param row Position of the row
+     * @return String resource id, 0 if the row uses getKey() instead
+     */
+    int getLabel(int row);
+
+    /**
+     * Key of a row, used if it has no label
+     * @param row Position of the row
+     * @return Key
+     */
+    String getKey(int row);
+
+    /**
+     * Reads the value of a row out of the model
+     * @param model Model
+     * @param row Position of the row
+     * @return Value, null if the member is null
+     */
+    String getValue(T model, int row);
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.annotations;
+
+/**
+ * Registry of the methods marked with KeyValueSource
+ * An implementation of it is generated by the widgets-compiler annotation processor
+ */
+
+public interface KeyValueSourceRegistry {
+    /**
+     * A method marked with KeyValueSource
+     */
+    interface Source {
+        /**
+         * Executes the method
+         * @param target Context of the view, used as receiver if the method is not static
+         * @return Value returned by the method
+         */
+        String get(Object target);
+
+        /**
+         * Whether the method is static, so it does not need the context of the view as receiver
+         * @return True if it is static
+         */
+        boolean isStatic();
+    }
+
+    /**
+     * Finds the method by its absolute name
+     * @param name Method name in form of domainname.orgname.projectname.className.methodName
+     * @return The method, null if it is not in this registry
+     */
+    Source find(String name);
+}
@@ -0,0 +1,329 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets.compiler;
+
+import com.corphish.widgets.annotations.KeyValue;
+import com.corphish.widgets.annotations.KeyValueBinder;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a KeyValueBinder for every class having members marked with KeyValue
+ * The binder is generated next to the model, named after it like Product_KeyValueBinder,
+ * or Outer_Product_KeyValueBinder for nested classes. It reads the members directly,
+ * so binding needs no reflection and keeps working once the model is shrunk or obfuscated.
+ */
+
+public class KeyValueBinderProcessor extends AbstractProcessor {
+    static final String BINDER_SUFFIX = "_KeyValueBinder";
+
+    /**
+     * A member shown as a row
+     */
+    private static class Row {
+        final Element element;
+        final int label, order;
+        final String key;
+
+        Row(Element element, KeyValue keyValue) {
+            this.element = element;
+            label = keyValue.label();
+            order = keyValue.order();
+            key = keyValue.key().isEmpty() ? defaultKey(element) : keyValue.key();
+        }
+    }
+
+    private Filer filer;
+    private Messager messager;
+    private Elements elements;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnvironment) {
+        super.init(processingEnvironment);
+
+        filer = processingEnvironment.getFiler();
+        messager = processingEnvironment.getMessager();
+        elements = processingEnvironment.getElementUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(KeyValue.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        Set<? extends Element> annotated = roundEnvironment.getElementsAnnotatedWith(KeyValue.class);
+        if (annotated.isEmpty()) return false;
+
+        // Models in the order they are first seen
+        Set<TypeElement> models = new LinkedHashSet<>();
+        for (Element element : annotated) models.add((TypeElement) element.getEnclosingElement());
+
+        for (TypeElement model : models) {
+            if (!isAccessible(model)) continue;
+
+            // Enclosed elements come in the order they are declared in
+            List<Row> rows = new ArrayList<>();
+            for (Element element : model.getEnclosedElements()) {
+                KeyValue keyValue = element.getAnnotation(KeyValue.class);
+                if (keyValue != null && isValid(element)) rows.add(new Row(element, keyValue));
+            }
+
+            // Stable, so rows of the same order keep the declared order
+            Collections.sort(rows, new Comparator<Row>() {
+                @Override
+                public int compare(Row first, Row second) {
+                    return first.order < second.order ? -1 : (first.order == second.order ? 0 : 1);
+                }
+            });
+
+            try {
+                writeBinder(model, rows);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Could not write the binder of " + model.getQualifiedName() + ": " + e.getMessage(), model);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the generated binder is able to read the member
+     * Errors are reported once per member, models are checked separately
+     * @param element Annotated element
+     * @return Whether it is valid
+     */
+    private boolean isValid(Element element) {
+        if (element.getModifiers().contains(Modifier.PRIVATE)) {
+            return error(element, "@KeyValue members must not be private");
+        }
+        if (element.getModifiers().contains(Modifier.STATIC)) {
+            return error(element, "@KeyValue members must not be static");
+        }
+
+        if (element.getKind() == ElementKind.METHOD) {
+            ExecutableElement method = (ExecutableElement) element;
+            if (!method.getParameters().isEmpty()) {
+                return error(element, "@KeyValue methods must not take any arguments");
+            }
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                return error(element, "@KeyValue methods must return a value");
+            }
+        } else if (element.getKind() != ElementKind.FIELD) {
+            return error(element, "@KeyValue can only be used on fields and methods");
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the binder, generated in the package of the model, can refer to it
+     * @param model Model
+     * @return Whether it is accessible
+     */
+    private boolean isAccessible(TypeElement model) {
+        for (Element element = model; element.getKind().isClass() || element.getKind().isInterface();
+             element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return error(model, "Classes having @KeyValue members must not be private");
+            }
+        }
+        if (!model.getKind().isClass()) {
+            return error(model, "@KeyValue members must be in a class");
+        }
+
+        return true;
+    }
+
+    private boolean error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    /**
+     * Key of a row without any, the name of the field or of the getter without its prefix
+     * @param element Field or getter
+     * @return Key
+     */
+    private static String defaultKey(Element element) {
+        String name = element.getSimpleName().toString();
+        if (element.getKind() == ElementKind.METHOD) {
+            if (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3))) {
+                name = name.substring(3);
+            } else if (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))) {
+                name = name.substring(2);
+            }
+        }
+
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void writeBinder(TypeElement model, List<Row> rows) throws IOException {
+        ClassName modelName = ClassName.get(model);
+        String packageName = modelName.packageName();
+
+        StringBuilder binderName = new StringBuilder();
+        for (String simpleName : modelName.simpleNames()) {
+            if (binderName.length() > 0) binderName.append('_');
+            binderName.append(simpleName);
+        }
+        binderName.append(BINDER_SUFFIX);
+
+        // Generic models are bound with wildcards, like Product<?>, so that any of their instances fits
+        TypeName modelType = modelName;
+        if (!model.getTypeParameters().isEmpty()) {
+            TypeName[] wildcards = new TypeName[model.getTypeParameters().size()];
+            Arrays.fill(wildcards, WildcardTypeName.subtypeOf(Object.class));
+            modelType = ParameterizedTypeName.get(modelName, wildcards);
+        }
+        TypeName stringType = ClassName.get(String.class);
+
+        CodeBlock.Builder labels = CodeBlock.builder().add("{");
+        CodeBlock.Builder keys = CodeBlock.builder().add("{");
+        CodeBlock.Builder values = CodeBlock.builder().beginControlFlow("switch (row)");
+        boolean needsText = false;
+
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            String separator = i > 0 ? ", " : "";
+            labels.add("$L$L", separator, row.label != 0 ? "0x" + Integer.toHexString(row.label) : "0");
+            keys.add("$L$S", separator, row.key);
+
+            TypeMirror type;
+            CodeBlock read;
+            if (row.element.getKind() == ElementKind.METHOD) {
+                type = ((ExecutableElement) row.element).getReturnType();
+                read = CodeBlock.of("model.$N()", row.element.getSimpleName().toString());
+            } else {
+                type = row.element.asType();
+                read = CodeBlock.of("model.$N", row.element.getSimpleName().toString());
+            }
+
+            values.add("case $L:\n", i).indent();
+            if (type.getKind().isPrimitive()) {
+                values.addStatement("return $T.valueOf($L)", String.class, read);
+            } else if (TypeName.get(type).equals(stringType)) {
+                values.addStatement("return $L", read);
+            } else {
+                values.addStatement("return toText($L)", read);
+                needsText = true;
+            }
+            values.unindent();
+        }
+
+        values.add("default:\n").indent()
+                .addStatement("throw new $T($S + row)", IndexOutOfBoundsException.class, "No row at ")
+                .unindent()
+                .endControlFlow();
+
+        TypeSpec.Builder binder = TypeSpec.classBuilder(binderName.toString())
+                .addJavadoc("Generated by $L, do not edit\n", KeyValueBinderProcessor.class.getSimpleName())
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addOriginatingElement(model)
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(KeyValueBinder.class), modelType))
+                .addField(FieldSpec.builder(int[].class, "LABELS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$L", labels.add("}").build())
+                        .build())
+                .addField(FieldSpec.builder(String[].class, "KEYS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$L", keys.add("}").build())
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("getRowCount")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(int.class)
+                        .addStatement("return $L", rows.size())
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("getLabel")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(int.class)
+                        .addParameter(int.class, "row")
+                        .addStatement("return LABELS[row]")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("getKey")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(String.class)
+                        .addParameter(int.class, "row")
+                        .addStatement("return KEYS[row]")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("getValue")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(String.class)
+                        .addParameter(modelType, "model")
+                        .addParameter(int.class, "row")
+                        .addCode(values.build())
+                        .build());
+
+        if (needsText) {
+            binder.addMethod(MethodSpec.methodBuilder("toText")
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                    .returns(String.class)
+                    .addParameter(Object.class, "value")
+                    .addStatement("return value != null ? value.toString() : null")
+                    .build());
+        }
+
+        JavaFile.builder(packageName, binder.build())
+                .skipJavaLangImports(true)
+                .build()
+                .writeTo(filer);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.compiler;
+
+import com.corphish.widgets.annotations.KeyValueSource;
+import com.corphish.widgets.annotations.KeyValueSourceRegistry;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a KeyValueSourceRegistry for the methods marked with KeyValueSource
+ * The registry lets app:methodForValue call the methods directly instead of using reflection.
+ * It is generated as com.corphish.widgets.generated.KeyValueSources, the package can be changed
+ * with the widgets.registryPackage processor option and the class name with widgets.registryName.
+ * Set either of them in every module using the processor, so that their registries do not collide.
+ * The registry is written in the round its methods are found, so that other processors see it and
+ * javac does not warn about a file created in the last round. Methods in sources generated by other
+ * processors after that are left out with a warning, app:methodForValue resolves them by reflection.
+ */
+
+public class KeyValueSourceProcessor extends AbstractProcessor {
+    static final String OPTION_PACKAGE = "widgets.registryPackage";
+    static final String OPTION_NAME = "widgets.registryName";
+    static final String DEFAULT_PACKAGE = "com.corphish.widgets.generated";
+    static final String REGISTRY_NAME = "KeyValueSources";
+
+    private Filer filer;
+    private Messager messager;
+    private Elements elements;
+
+    // Names the methods can be referred with, mapped to the code calling them
+    private final Map<String, CodeBlock> sources = new LinkedHashMap<>();
+    // Calls of the static methods among them
+    private final Set<CodeBlock> staticSources = new HashSet<>();
+    // Whether the registry was written in an earlier round
+    private boolean written = false;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnvironment) {
+        super.init(processingEnvironment);
+
+        filer = processingEnvironment.getFiler();
+        messager = processingEnvironment.getMessager();
+        elements = processingEnvironment.getElementUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(KeyValueSource.class.getCanonicalName());
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return new HashSet<>(Arrays.asList(OPTION_PACKAGE, OPTION_NAME));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        // Files created once processing is over are not processed anymore, javac warns about them
+        if (roundEnvironment.processingOver()) return false;
+
+        Set<? extends Element> annotated = roundEnvironment.getElementsAnnotatedWith(KeyValueSource.class);
+        if (annotated.isEmpty()) return false;
+
+        for (Element element : annotated) {
+            if (!isValid(element)) continue;
+
+            // Only one registry is generated per compilation, it cannot be changed once written
+            if (written) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "@KeyValueSource method generated after "
+                        + registryName() + " was written, it is resolved by reflection", element);
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) element;
+            TypeElement clazz = (TypeElement) method.getEnclosingElement();
+            ClassName className = ClassName.get(clazz);
+            String methodName = method.getSimpleName().toString();
+
+            boolean isStatic = method.getModifiers().contains(Modifier.STATIC);
+            CodeBlock call = isStatic
+                    ? CodeBlock.of("return $T.$N()", className, methodName)
+                    : CodeBlock.of("return (($T) target).$N()", className, methodName);
+            if (isStatic) staticSources.add(call);
+
+            // Nested classes can be referred with both their canonical and binary name,
+            // the binary name is what an unqualified app:methodForValue resolves to
+            sources.put(clazz.getQualifiedName() + "." + methodName, call);
+            sources.put(elements.getBinaryName(clazz) + "." + methodName, call);
+        }
+
+        if (!written && !sources.isEmpty()) {
+            written = true;
+            try {
+                writeRegistry(sources);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Could not write " + registryName() + ": " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the generated registry is able to call the method
+     * @param element Annotated element
+     * @return Whether it is valid
+     */
+    private boolean isValid(Element element) {
+        if (element.getKind() != ElementKind.METHOD) {
+            return error(element, "@KeyValueSource can only be used on methods");
+        }
+
+        ExecutableElement method = (ExecutableElement) element;
+        if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+            return error(element, "@KeyValueSource methods must be public");
+        }
+        if (!method.getParameters().isEmpty()) {
+            return error(element, "@KeyValueSource methods must not take any arguments");
+        }
+        if (!TypeName.get(method.getReturnType()).equals(ClassName.get(String.class))) {
+            return error(element, "@KeyValueSource methods must return String");
+        }
+
+        TypeElement clazz = (TypeElement) method.getEnclosingElement();
+        if (!clazz.getModifiers().contains(Modifier.PUBLIC)) {
+            return error(element, "The class of a @KeyValueSource method must be public");
+        }
+        if (clazz.getNestingKind() == NestingKind.MEMBER && !clazz.getModifiers().contains(Modifier.STATIC)) {
+            return error(element, "The class of a @KeyValueSource method must not be an inner class");
+        }
+
+        return true;
+    }
+
+    private boolean error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private String registryName() {
+        String name = processingEnv.getOptions().get(OPTION_NAME);
+        return name == null || name.isEmpty() ? REGISTRY_NAME : name;
+    }
+
+    private void writeRegistry(Map<String, CodeBlock> sources) throws IOException {
+        String packageName = processingEnv.getOptions().get(OPTION_PACKAGE);
+        if (packageName == null || packageName.isEmpty()) packageName = DEFAULT_PACKAGE;
+
+        ClassName sourceType = ClassName.get(KeyValueSourceRegistry.Source.class);
+        TypeSpec.Builder registry = TypeSpec.classBuilder(registryName())
+                .addJavadoc("Generated by $L, do not edit\n", KeyValueSourceProcessor.class.getSimpleName())
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(KeyValueSourceRegistry.class);
+
+        // One constant per method, so that both of its names share it
+        Map<CodeBlock, String> fields = new LinkedHashMap<>();
+        CodeBlock.Builder cases = CodeBlock.builder().beginControlFlow("switch (name)");
+
+        for (Map.Entry<String, CodeBlock> entry : sources.entrySet()) {
+            String field = fields.get(entry.getValue());
+            if (field == null) {
+                field = "SOURCE_" + fields.size();
+                fields.put(entry.getValue(), field);
+
+                TypeSpec source = TypeSpec.anonymousClassBuilder("")
+                        .addSuperinterface(sourceType)
+                        .addMethod(MethodSpec.methodBuilder("get")
+                                .addAnnotation(Override.class)
+                                .addModifiers(Modifier.PUBLIC)
+                                .returns(String.class)
+                                .addParameter(Object.class, "target")
+                                .addStatement("$L", entry.getValue())
+                                .build())
+                        .addMethod(MethodSpec.methodBuilder("isStatic")
+                                .addAnnotation(Override.class)
+                                .addModifiers(Modifier.PUBLIC)
+                                .returns(boolean.class)
+                                .addStatement("return $L", staticSources.contains(entry.getValue()))
+                                .build())
+                        .build();
+                registry.addField(FieldSpec.builder(sourceType, field, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$L", source)
+                        .build());
+            }
+
+            cases.add("case $S:\n", entry.getKey()).indent().addStatement("return $N", field).unindent();
+        }
+
+        cases.add("default:\n").indent().addStatement("return null").unindent().endControlFlow();
+
+        registry.addMethod(MethodSpec.methodBuilder("find")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(sourceType)
+                .addParameter(String.class, "name")
+                .addCode(cases.build())
+                .build());
+
+        JavaFile.builder(packageName, registry.build())
+                .skipJavaLangImports(true)
+                .build()
+                .writeTo(filer);
+    }
+}
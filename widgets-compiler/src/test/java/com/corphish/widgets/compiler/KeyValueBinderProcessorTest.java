@@ -0,0 +1,151 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.compiler;
+
+import com.corphish.widgets.annotations.KeyValueBinder;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the binders KeyValueBinderProcessor generates, by compiling sources through it
+ */
+
+public class KeyValueBinderProcessorTest {
+    private static JavaFileObject product() {
+        return TestCompiler.source("x.Product",
+                "package x;",
+                "import com.corphish.widgets.annotations.KeyValue;",
+                "public class Product<T extends Number> {",
+                "    @KeyValue String name;",
+                "    @KeyValue(label = 0x7f0b0001) T price;",
+                "    @KeyValue(key = \"In stock\", order = 1) boolean available;",
+                "    String notShown;",
+                "    @KeyValue public String getDescription() { return name + \" of \" + price; }",
+                "    @KeyValue boolean isOnSale() { return false; }",
+                "}");
+    }
+
+    private static List<Processor> processor() {
+        return Collections.<Processor>singletonList(new KeyValueBinderProcessor());
+    }
+
+    @Test
+    public void bindsGenericModelsWithWildcards() {
+        TestCompiler.Result result = TestCompiler.compile(processor(), product(), TestCompiler.source("x.Usage",
+                "package x;",
+                "import com.corphish.widgets.annotations.KeyValueBinder;",
+                "class Usage {",
+                "    String read(Product<Integer> product) {",
+                "        KeyValueBinder<Product<?>> binder = new Product_KeyValueBinder();",
+                "        return binder.getValue(product, 0);",
+                "    }",
+                "}"));
+
+        assertTrue(result.diagnostics.toString(), result.success);
+        assertEquals(Collections.emptyList(), result.messages(Diagnostic.Kind.WARNING));
+        assertEquals(Collections.emptyList(), result.messages(Diagnostic.Kind.MANDATORY_WARNING));
+        assertTrue(result.generatedSource("x.Product_KeyValueBinder").contains("implements KeyValueBinder<Product<?>>"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void readsRowsInOrder() throws Exception {
+        Class<?> binderClass = TestCompiler.compile(processor(), product()).load("x.Product_KeyValueBinder");
+        KeyValueBinder<Object> binder = (KeyValueBinder<Object>) binderClass.newInstance();
+
+        Class<?> modelClass = binderClass.getClassLoader().loadClass("x.Product");
+        Object model = modelClass.newInstance();
+        set(model, "name", "Pen");
+        set(model, "price", 5);
+        set(model, "available", true);
+
+        // Rows of order 0 keep the order they are declared in, the one of order 1 comes last
+        assertEquals(5, binder.getRowCount());
+        assertEquals(Arrays.asList("Name", "Price", "Description", "OnSale", "In stock"), keys(binder));
+        assertEquals(Arrays.asList("Pen", "5", "Pen of 5", "false", "true"), values(binder, model));
+
+        // Labels are used instead of keys when given
+        assertEquals(0, binder.getLabel(0));
+        assertEquals(0x7f0b0001, binder.getLabel(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void readsNullMembersAsNull() throws Exception {
+        Class<?> binderClass = TestCompiler.compile(processor(), product()).load("x.Product_KeyValueBinder");
+        KeyValueBinder<Object> binder = (KeyValueBinder<Object>) binderClass.newInstance();
+        Object model = binderClass.getClassLoader().loadClass("x.Product").newInstance();
+
+        assertNull(binder.getValue(model, 0));
+        assertNull(binder.getValue(model, 1));
+    }
+
+    @Test
+    public void rejectsMembersItCannotRead() {
+        TestCompiler.Result result = TestCompiler.compile(processor(), TestCompiler.source("x.Invalid",
+                "package x;",
+                "import com.corphish.widgets.annotations.KeyValue;",
+                "public class Invalid {",
+                "    @KeyValue private String hidden;",
+                "    @KeyValue static String shared;",
+                "    @KeyValue String withArgument(int i) { return null; }",
+                "    @KeyValue void nothing() { }",
+                "}"));
+
+        assertFalse(result.success);
+        assertEquals(Arrays.asList("@KeyValue members must not be private",
+                "@KeyValue members must not be static",
+                "@KeyValue methods must not take any arguments",
+                "@KeyValue methods must return a value"), result.messages(Diagnostic.Kind.ERROR));
+    }
+
+    private static void set(Object model, String name, Object value) throws Exception {
+        Field field = model.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(model, value);
+    }
+
+    private static List<String> keys(KeyValueBinder<?> binder) {
+        String[] keys = new String[binder.getRowCount()];
+        for (int i = 0; i < keys.length; i++) keys[i] = binder.getKey(i);
+
+        return Arrays.asList(keys);
+    }
+
+    private static List<String> values(KeyValueBinder<Object> binder, Object model) {
+        String[] values = new String[binder.getRowCount()];
+        for (int i = 0; i < values.length; i++) values[i] = binder.getValue(model, i);
+
+        return Arrays.asList(values);
+    }
+}
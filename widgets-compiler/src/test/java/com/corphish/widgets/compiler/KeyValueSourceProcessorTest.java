@@ -0,0 +1,174 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.compiler;
+
+import com.corphish.widgets.annotations.KeyValueSourceRegistry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the registry KeyValueSourceProcessor generates, by compiling sources through it
+ */
+
+public class KeyValueSourceProcessorTest {
+    private static final String REGISTRY = KeyValueSourceProcessor.DEFAULT_PACKAGE + "." + KeyValueSourceProcessor.REGISTRY_NAME;
+
+    /**
+     * Generates a class with a KeyValueSource method in the first round, like other processors could
+     */
+    private static class GeneratingProcessor extends AbstractProcessor {
+        private boolean generated = false;
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return Collections.singleton("*");
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+            if (generated) return false;
+            generated = true;
+
+            try (Writer writer = processingEnv.getFiler().createSourceFile("x.Generated").openWriter()) {
+                writer.write("package x;\n"
+                        + "public class Generated {\n"
+                        + "    @com.corphish.widgets.annotations.KeyValueSource public static String late() { return \"late\"; }\n"
+                        + "}\n");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return false;
+        }
+    }
+
+    private static JavaFileObject sources() {
+        return TestCompiler.source("x.Sources",
+                "package x;",
+                "import com.corphish.widgets.annotations.KeyValueSource;",
+                "public class Sources {",
+                "    @KeyValueSource public static String version() { return \"1.0\"; }",
+                "    @KeyValueSource public String name() { return \"sources\"; }",
+                "    public static class Nested {",
+                "        @KeyValueSource public static String nested() { return \"nested\"; }",
+                "    }",
+                "}");
+    }
+
+    private static List<Processor> processor() {
+        return Collections.<Processor>singletonList(new KeyValueSourceProcessor());
+    }
+
+    @Test
+    public void generatesRegistryWithoutWarnings() throws Exception {
+        TestCompiler.Result result = TestCompiler.compile(processor(), sources());
+
+        assertTrue(result.diagnostics.toString(), result.success);
+        assertEquals(Collections.emptyList(), result.messages(Diagnostic.Kind.WARNING));
+        assertEquals(Collections.emptyList(), result.messages(Diagnostic.Kind.MANDATORY_WARNING));
+        assertNotNull(result.generatedSource(REGISTRY));
+    }
+
+    @Test
+    public void callsMethodsDirectly() throws Exception {
+        Class<?> registryClass = TestCompiler.compile(processor(), sources()).load(REGISTRY);
+        KeyValueSourceRegistry registry = (KeyValueSourceRegistry) registryClass.newInstance();
+        Object target = registryClass.getClassLoader().loadClass("x.Sources").newInstance();
+
+        KeyValueSourceRegistry.Source version = registry.find("x.Sources.version");
+        assertTrue(version.isStatic());
+        assertEquals("1.0", version.get(null));
+
+        KeyValueSourceRegistry.Source name = registry.find("x.Sources.name");
+        assertFalse(name.isStatic());
+        assertEquals("sources", name.get(target));
+
+        // Nested classes are found by both of their names
+        assertEquals("nested", registry.find("x.Sources.Nested.nested").get(null));
+        assertEquals("nested", registry.find("x.Sources$Nested.nested").get(null));
+        assertNull(registry.find("x.Sources.missing"));
+    }
+
+    @Test
+    public void namesRegistryByOptions() throws Exception {
+        TestCompiler.Result result = TestCompiler.compile(processor(),
+                Arrays.asList("-Awidgets.registryPackage=x.generated", "-Awidgets.registryName=XSources"), sources());
+
+        assertTrue(result.diagnostics.toString(), result.success);
+        assertNull(result.generatedSource(REGISTRY));
+        assertNotNull(result.generatedSource("x.generated.XSources"));
+    }
+
+    @Test
+    public void leavesLaterMethodsToReflection() throws Exception {
+        TestCompiler.Result result = TestCompiler.compile(
+                Arrays.<Processor>asList(new GeneratingProcessor(), new KeyValueSourceProcessor()), sources());
+
+        assertTrue(result.diagnostics.toString(), result.success);
+        assertEquals(1, result.messages(Diagnostic.Kind.WARNING).size());
+        assertTrue(result.messages(Diagnostic.Kind.WARNING).get(0).contains("resolved by reflection"));
+
+        KeyValueSourceRegistry registry = (KeyValueSourceRegistry) result.load(REGISTRY).newInstance();
+        assertNotNull(registry.find("x.Sources.version"));
+        assertNull(registry.find("x.Generated.late"));
+    }
+
+    @Test
+    public void rejectsMethodsItCannotCall() {
+        TestCompiler.Result result = TestCompiler.compile(processor(), TestCompiler.source("x.Invalid",
+                "package x;",
+                "import com.corphish.widgets.annotations.KeyValueSource;",
+                "public class Invalid {",
+                "    @KeyValueSource static String hidden() { return null; }",
+                "    @KeyValueSource public static String withArgument(int i) { return null; }",
+                "    @KeyValueSource public static int number() { return 0; }",
+                "}"));
+
+        assertFalse(result.success);
+        assertEquals(Arrays.asList("@KeyValueSource methods must be public",
+                "@KeyValueSource methods must not take any arguments",
+                "@KeyValueSource methods must return String"), result.messages(Diagnostic.Kind.ERROR));
+    }
+}
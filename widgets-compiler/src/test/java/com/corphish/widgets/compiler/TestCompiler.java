@@ -0,0 +1,224 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets.compiler;
+
+import com.corphish.widgets.annotations.KeyValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles sources in memory through annotation processors, for testing them
+ * Generated sources and classes are kept in memory, the classes can be loaded afterwards.
+ */
+
+final class TestCompiler {
+    /**
+     * Outcome of a compilation
+     */
+    static final class Result {
+        final boolean success;
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        private final Map<String, MemoryFile> sources, classes;
+
+        private Result(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                       Map<String, MemoryFile> sources, Map<String, MemoryFile> classes) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.sources = sources;
+            this.classes = classes;
+        }
+
+        /**
+         * Messages reported with the given kind
+         * @param kind Kind, like WARNING
+         * @return Messages
+         */
+        List<String> messages(Diagnostic.Kind kind) {
+            List<String> messages = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+                if (diagnostic.getKind() == kind) messages.add(diagnostic.getMessage(null));
+            }
+
+            return messages;
+        }
+
+        /**
+         * Source generated by a processor
+         * @param className Binary name of the class
+         * @return Source, null if it was not generated
+         */
+        String generatedSource(String className) {
+            MemoryFile file = sources.get(className);
+            return file != null ? file.content() : null;
+        }
+
+        /**
+         * Loads a compiled class, the classes it refers to are loaded from the same compilation
+         * @param className Binary name of the class
+         * @return Class
+         * @throws ClassNotFoundException If it was not compiled
+         */
+        Class<?> load(String className) throws ClassNotFoundException {
+            final Map<String, byte[]> bytes = new HashMap<>();
+            for (Map.Entry<String, MemoryFile> entry : classes.entrySet()) {
+                bytes.put(entry.getKey(), entry.getValue().bytes.toByteArray());
+            }
+
+            ClassLoader loader = new ClassLoader(TestCompiler.class.getClassLoader()) {
+                @Override
+                protected Class<?> findClass(String name) throws ClassNotFoundException {
+                    byte[] code = bytes.get(name);
+                    if (code == null) throw new ClassNotFoundException(name);
+
+                    return defineClass(name, code, 0, code.length);
+                }
+            };
+
+            return loader.loadClass(className);
+        }
+    }
+
+    /**
+     * Source or class kept in memory
+     */
+    private static final class MemoryFile extends SimpleJavaFileObject {
+        private final String source;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        MemoryFile(String className, Kind kind, String source) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+            this.source = source;
+        }
+
+        String content() {
+            return source != null ? source : new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content();
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            bytes.reset();
+            return bytes;
+        }
+    }
+
+    /**
+     * Keeps whatever javac writes in memory
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        final Map<String, MemoryFile> sources = new LinkedHashMap<>(), classes = new LinkedHashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            MemoryFile file = new MemoryFile(className, kind, null);
+            (kind == JavaFileObject.Kind.SOURCE ? sources : classes).put(className, file);
+
+            return file;
+        }
+    }
+
+    private TestCompiler() {
+    }
+
+    /**
+     * Source of a class, given line by line
+     * @param className Qualified name of the class
+     * @param lines Lines
+     * @return Source
+     */
+    static JavaFileObject source(String className, String... lines) {
+        StringBuilder source = new StringBuilder();
+        for (String line : lines) source.append(line).append('\n');
+
+        return new MemoryFile(className, JavaFileObject.Kind.SOURCE, source.toString());
+    }
+
+    /**
+     * Compiles the sources with the annotations of widgets-annotations in the classpath
+     * Warnings about raw types and unchecked conversions are reported, so they can be checked
+     * @param processors Processors to run, in this order
+     * @param sources Sources
+     * @return Result
+     */
+    static Result compile(List<? extends Processor> processors, JavaFileObject... sources) {
+        return compile(processors, Collections.<String>emptyList(), sources);
+    }
+
+    /**
+     * Compiles the sources with the annotations of widgets-annotations in the classpath
+     * @param processors Processors to run, in this order
+     * @param processorOptions Options of the processors, like -Awidgets.registryName=Sources
+     * @param sources Sources
+     * @return Result
+     */
+    static Result compile(List<? extends Processor> processors, List<String> processorOptions, JavaFileObject... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, null));
+
+        List<String> options = new ArrayList<>(Arrays.asList("-classpath", annotationsPath(), "-Xlint:rawtypes,unchecked"));
+        options.addAll(processorOptions);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                Arrays.asList(sources));
+        task.setProcessors(processors);
+        boolean success = task.call();
+
+        return new Result(success, diagnostics.getDiagnostics(), fileManager.sources, fileManager.classes);
+    }
+
+    private static String annotationsPath() {
+        try {
+            return new File(KeyValueSource.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
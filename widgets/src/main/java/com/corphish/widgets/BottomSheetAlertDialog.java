@@ -6,16 +6,29 @@ import android.support.annotation.NonNull;
 import android.support.annotation.StringRes;
 import android.support.annotation.StyleRes;
 import android.support.design.widget.BottomSheetDialog;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by avinabadalal on 03/02/18.
  * Bottom sheet alert dialog, kinda material replacement for alert dialogs
  * You can use it to replace alert dialog messages
  * It wraps up only the basic alert dialog, which contains title, message, and positive, negative and neutral buttons
+ * Use Builder.prepare() to inflate it ahead of time, and Pool to reuse it for repeated confirmations
  */
 
 public class BottomSheetAlertDialog {
+    /**
+     * Messages longer than this are shown in large message mode
+     */
+    public static final int LARGE_MESSAGE_THRESHOLD = 16 * 1024;
 
     public static class Builder {
         Context context;
@@ -26,6 +39,9 @@ public class BottomSheetAlertDialog {
 
         DialogInterface.OnClickListener positiveButtonClickListener, negativeButtonClickListener, neutralButtonListener;
 
+        // Whether to split the message in chunks, null to decide by its length
+        Boolean largeMessageMode;
+
         public Builder(@NonNull Context context) {
             this.context = context;
         }
@@ -101,10 +117,230 @@ public class BottomSheetAlertDialog {
             return this;
         }
 
-        public void show() {
-            BottomSheetDialog bottomSheetDialog = new BottomSheetDialog(context, themeId);
-            bottomSheetDialog.setContentView(LayoutInflater.from(context).inflate(R.layout.bottom_sheet_alert_dialog, null));
-            bottomSheetDialog.show();
+        /**
+         * Sets whether the message is shown in large message mode
+         * In this mode the message is split in chunks at line breaks, which are shown in a list,
+         * so that only the visible ones are laid out. Use it for logs, licenses or crash reports,
+         * opening the dialog then takes about the same time whatever the message size.
+         * By default it is used for messages longer than LARGE_MESSAGE_THRESHOLD.
+         * @param largeMessageMode Whether to use large message mode
+         */
+        public Builder setLargeMessageMode(boolean largeMessageMode) {
+            this.largeMessageMode = largeMessageMode;
+
+            return this;
+        }
+
+        boolean isLargeMessage() {
+            if (largeMessageMode != null) return largeMessageMode;
+            return message != null && message.length() > LARGE_MESSAGE_THRESHOLD;
+        }
+
+        /**
+         * Inflates the dialog and binds the content of this builder to it, without showing it
+         * Do it ahead of time, so that showing the dialog later is instant
+         * @return Prepared dialog
+         */
+        public BottomSheetAlertDialog prepare() {
+            BottomSheetAlertDialog dialog = new BottomSheetAlertDialog(context, themeId, isLargeMessage());
+            dialog.bind(this);
+
+            return dialog;
+        }
+
+        /**
+         * Prepares the dialog and shows it
+         * @return Shown dialog
+         */
+        public BottomSheetAlertDialog show() {
+            BottomSheetAlertDialog dialog = prepare();
+            dialog.show();
+
+            return dialog;
+        }
+    }
+
+    /**
+     * Dialogs kept for reuse
+     * For confirmations shown over and over, the dialog which is not showing anymore is bound to the
+     * new content instead of inflating a new one. Dialogs hold the context, so keep a pool per Activity,
+     * and clear it when the Activity is destroyed.
+     */
+    public static class Pool {
+        private final List<BottomSheetAlertDialog> dialogs = new ArrayList<>();
+        private final int maxSize;
+
+        public Pool() {
+            this(2);
+        }
+
+        /**
+         * Constructor
+         * @param maxSize Maximum number of dialogs kept
+         */
+        public Pool(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Gets a dialog not showing at the moment and binds the content of the builder to it,
+         * or prepares a new one if there is none
+         * @param builder Builder
+         * @return Prepared dialog
+         */
+        public BottomSheetAlertDialog obtain(@NonNull Builder builder) {
+            for (BottomSheetAlertDialog dialog : dialogs) {
+                if (!dialog.isShowing() && dialog.context == builder.context && dialog.themeId == builder.themeId
+                        && dialog.largeMessage == builder.isLargeMessage()) {
+                    dialog.bind(builder);
+                    return dialog;
+                }
+            }
+
+            BottomSheetAlertDialog dialog = builder.prepare();
+            if (dialogs.size() < maxSize) dialogs.add(dialog);
+
+            return dialog;
+        }
+
+        /**
+         * Obtains a dialog for the builder and shows it
+         * @param builder Builder
+         * @return Shown dialog
+         */
+        public BottomSheetAlertDialog show(@NonNull Builder builder) {
+            BottomSheetAlertDialog dialog = obtain(builder);
+            dialog.show();
+
+            return dialog;
+        }
+
+        /**
+         * Dismisses and drops every dialog in the pool
+         */
+        public void clear() {
+            for (BottomSheetAlertDialog dialog : dialogs) {
+                dialog.dismiss();
+            }
+            dialogs.clear();
         }
     }
+
+    private final Context context;
+    @StyleRes private final int themeId;
+    private final boolean largeMessage;
+    private final BottomSheetDialog bottomSheetDialog;
+    private final TextView titleView, messageView, negativeButton;
+    private final Button positiveButton, neutralButton;
+
+    // Message chunks, in large message mode
+    private final MessageChunkAdapter messageChunkAdapter;
+
+    // Builder bound last, its listeners are the ones called
+    private Builder builder;
+
+    private BottomSheetAlertDialog(@NonNull Context context, @StyleRes int themeId, boolean largeMessage) {
+        this.context = context;
+        this.themeId = themeId;
+        this.largeMessage = largeMessage;
+
+        bottomSheetDialog = new BottomSheetDialog(context, themeId);
+        View content = LayoutInflater.from(bottomSheetDialog.getContext()).inflate(largeMessage
+                ? R.layout.bottom_sheet_alert_dialog_large : R.layout.bottom_sheet_alert_dialog, null);
+        bottomSheetDialog.setContentView(content);
+
+        titleView = content.findViewById(R.id.title);
+        if (largeMessage) {
+            messageView = null;
+            messageChunkAdapter = new MessageChunkAdapter();
+
+            RecyclerView messageList = content.findViewById(R.id.message_list);
+            messageList.setLayoutManager(new LinearLayoutManager(bottomSheetDialog.getContext()));
+            messageList.setAdapter(messageChunkAdapter);
+        } else {
+            messageView = content.findViewById(R.id.message);
+            messageChunkAdapter = null;
+        }
+        positiveButton = content.findViewById(R.id.positive);
+        negativeButton = content.findViewById(R.id.negative);
+        neutralButton = content.findViewById(R.id.neutral);
+
+        positiveButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onButtonClick(builder.positiveButtonClickListener, DialogInterface.BUTTON_POSITIVE);
+            }
+        });
+        negativeButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onButtonClick(builder.negativeButtonClickListener, DialogInterface.BUTTON_NEGATIVE);
+            }
+        });
+        neutralButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onButtonClick(builder.neutralButtonListener, DialogInterface.BUTTON_NEUTRAL);
+            }
+        });
+    }
+
+    /**
+     * Binds the content of the builder to the views
+     * @param builder Builder
+     */
+    private void bind(@NonNull Builder builder) {
+        this.builder = builder;
+
+        bindText(titleView, builder.title);
+        if (largeMessage) messageChunkAdapter.setText(builder.message != null ? builder.message : "");
+        else bindText(messageView, builder.message);
+        bindText(positiveButton, builder.positiveButtonText);
+        bindText(negativeButton, builder.negativeButtonText);
+        bindText(neutralButton, builder.neutralButtonText);
+    }
+
+    private static void bindText(TextView textView, String text) {
+        if (text == null) {
+            textView.setVisibility(View.GONE);
+        } else {
+            textView.setText(text);
+            textView.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void onButtonClick(DialogInterface.OnClickListener listener, int which) {
+        if (listener != null) listener.onClick(bottomSheetDialog, which);
+        bottomSheetDialog.dismiss();
+    }
+
+    /**
+     * Shows the dialog
+     */
+    public void show() {
+        bottomSheetDialog.show();
+    }
+
+    /**
+     * Dismisses the dialog
+     */
+    public void dismiss() {
+        bottomSheetDialog.dismiss();
+    }
+
+    /**
+     * Whether the dialog is showing
+     * @return True if it is
+     */
+    public boolean isShowing() {
+        return bottomSheetDialog.isShowing();
+    }
+
+    /**
+     * Just in case user wants to do advanced stuff with the underlying dialog
+     * @return Bottom sheet dialog
+     */
+    public BottomSheetDialog getDialog() {
+        return bottomSheetDialog;
+    }
 }
@@ -0,0 +1,276 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.content.res.AppCompatResources;
+import android.util.LruCache;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of the drawables shown by the widgets
+ * Drawables are keyed by resource, theme, tint and size. Each is rasterized once, with the tint applied,
+ * and every view gets its own drawable sharing the same bitmap through its constant state.
+ * The theme is part of the key since drawables can refer to its attributes, so views of contexts with
+ * different themes, like different activities, do not share bitmaps.
+ * Stateful and animated drawables cannot be rasterized, they are loaded as they are every time.
+ * The cache is bounded by the bytes of the bitmaps, and is trimmed when the system asks for memory.
+ */
+
+public final class DrawableCache {
+    // No tint, SRC_ATOP with a transparent color leaves the drawable as it is anyway
+    public static final int NO_TINT = Color.TRANSPARENT;
+
+    private static final int DEFAULT_MAX_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024);
+
+    private static final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+    private static final AtomicBoolean callbacksRegistered = new AtomicBoolean();
+
+    private static volatile LruCache<Key, Entry> cache = newCache(DEFAULT_MAX_BYTES);
+
+    private static final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // Resources may resolve to other drawables now, like in night mode
+            cache.evictAll();
+        }
+
+        @Override
+        public void onLowMemory() {
+            cache.evictAll();
+        }
+    };
+
+    private DrawableCache() {
+    }
+
+    private static final class Key {
+        // Compared by identity, held weakly so that the entries of finished activities only wait to be evicted
+        final WeakReference<Resources.Theme> theme;
+        final int resourceId, themeHash, tint, width, height;
+
+        Key(int resourceId, @Nullable Resources.Theme theme, int tint, int width, int height) {
+            this.resourceId = resourceId;
+            this.theme = new WeakReference<>(theme);
+            this.themeHash = System.identityHashCode(theme);
+            this.tint = tint;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return resourceId == key.resourceId && tint == key.tint && width == key.width && height == key.height
+                    && themeHash == key.themeHash && theme.get() == key.theme.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return (((resourceId * 31 + themeHash) * 31 + tint) * 31 + width) * 31 + height;
+        }
+    }
+
+    private static final class Entry {
+        final Drawable.ConstantState state;
+        final int bytes;
+
+        Entry(Drawable.ConstantState state, int bytes) {
+            this.state = state;
+            this.bytes = bytes;
+        }
+    }
+
+    private static LruCache<Key, Entry> newCache(int maxBytes) {
+        return new LruCache<Key, Entry>(Math.max(maxBytes, 1)) {
+            @Override
+            protected int sizeOf(Key key, Entry entry) {
+                return entry.bytes;
+            }
+        };
+    }
+
+    /**
+     * Gets the drawable at its intrinsic size, without tint
+     * @param context Context
+     * @param resourceId Drawable resource id
+     * @return Drawable, null if the id is 0
+     */
+    @Nullable
+    public static Drawable get(@NonNull Context context, @DrawableRes int resourceId) {
+        return get(context, resourceId, NO_TINT, 0, 0);
+    }
+
+    /**
+     * Gets the drawable tinted and sized as needed
+     * The drawable returned is owned by the caller, its bitmap is shared, so mutate() it before
+     * changing it in any way other than its bounds.
+     * @param context Context
+     * @param resourceId Drawable resource id
+     * @param tint Tint, applied the same way as ImageView.setColorFilter(int), NO_TINT for none
+     * @param width Width to fit the drawable in, keeping its aspect ratio, 0 for its intrinsic size
+     * @param height Height to fit the drawable in, keeping its aspect ratio, 0 for its intrinsic size
+     * @return Drawable, null if the id is 0
+     */
+    @Nullable
+    public static Drawable get(@NonNull Context context, @DrawableRes int resourceId, @ColorInt int tint, int width, int height) {
+        if (resourceId == 0) return null;
+        registerCallbacks(context);
+
+        Resources resources = context.getResources();
+        Key key = new Key(resourceId, context.getTheme(), tint, Math.max(width, 0), Math.max(height, 0));
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.state.newDrawable(resources);
+        }
+
+        misses.incrementAndGet();
+        Drawable source = AppCompatResources.getDrawable(context, resourceId);
+        if (source == null) return null;
+
+        // Rasterizing would freeze what has to keep changing
+        if (source.isStateful() || source instanceof Animatable) return tint(source, tint);
+
+        int intrinsicWidth = source.getIntrinsicWidth(), intrinsicHeight = source.getIntrinsicHeight();
+        int targetWidth = intrinsicWidth, targetHeight = intrinsicHeight;
+        if (intrinsicWidth > 0 && intrinsicHeight > 0 && key.width > 0 && key.height > 0) {
+            float scale = Math.min((float) key.width / intrinsicWidth, (float) key.height / intrinsicHeight);
+            targetWidth = Math.max(1, Math.round(intrinsicWidth * scale));
+            targetHeight = Math.max(1, Math.round(intrinsicHeight * scale));
+        } else if (intrinsicWidth <= 0 || intrinsicHeight <= 0) {
+            targetWidth = key.width;
+            targetHeight = key.height;
+        }
+
+        // Drawables without any size, like colors, fill whatever they are given
+        if (targetWidth <= 0 || targetHeight <= 0) return tint(source, tint);
+
+        Bitmap bitmap = Bitmap.createBitmap(targetWidth, targetHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        source = tint(source, tint);
+        source.setBounds(0, 0, targetWidth, targetHeight);
+        source.draw(canvas);
+
+        BitmapDrawable drawable = new BitmapDrawable(resources, bitmap);
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (state == null) return drawable;
+
+        cache.put(key, new Entry(state, bitmap.getRowBytes() * bitmap.getHeight()));
+        return state.newDrawable(resources);
+    }
+
+    private static Drawable tint(Drawable drawable, int tint) {
+        if (tint == NO_TINT) return drawable;
+
+        drawable = drawable.mutate();
+        drawable.setColorFilter(tint, PorterDuff.Mode.SRC_ATOP);
+        return drawable;
+    }
+
+    private static void registerCallbacks(Context context) {
+        if (callbacksRegistered.get()) return;
+
+        Context applicationContext = context.getApplicationContext();
+        if (applicationContext != null && callbacksRegistered.compareAndSet(false, true)) {
+            applicationContext.registerComponentCallbacks(memoryCallbacks);
+        }
+    }
+
+    /**
+     * Trims the cache as the system asks, called automatically once the cache is used
+     * @param level Level passed to ComponentCallbacks2.onTrimMemory()
+     */
+    public static void trimMemory(int level) {
+        LruCache<Key, Entry> current = cache;
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            current.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            current.trimToSize(current.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Sets the maximum bytes of the bitmaps kept
+     * Clears the cache
+     * @param maxBytes Maximum bytes
+     */
+    public static void setMaxSize(int maxBytes) {
+        cache = newCache(maxBytes);
+    }
+
+    /**
+     * Number of times a drawable was found in the cache
+     * @return Hit count
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of times a drawable had to be loaded
+     * @return Miss count
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Bytes of the bitmaps cached
+     * @return Size of the cache
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /**
+     * Clears the cache and resets the counters
+     */
+    public static void clear() {
+        cache.evictAll();
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -0,0 +1,647 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+import android.support.annotation.StyleRes;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * Flat Key Value view
+ * Same as KeyValueView, but instead of a container having 2 text views, a single view
+ * drawing the key and the value itself from cached text layouts
+ * Use this where a lot of key value pairs are shown at once, it is far cheaper to create, measure and lay out
+ * It accepts the same properties as KeyValueView
+ */
+
+public class FlatKeyValueView extends View {
+    // Paints used for key and value
+    private final TextPaint keyPaint = TextLayouts.newPaint(), valuePaint = TextLayouts.newPaint();
+    private final Paint backgroundPaint = new Paint();
+
+    // Text and colors of key and value
+    private CharSequence keyText, valueText;
+    private ColorStateList keyColors, valueColors;
+    private int keyBackgroundColor = Color.TRANSPARENT, valueBackgroundColor = Color.TRANSPARENT;
+    private boolean keyEnabled = true, valueEnabled = true;
+
+    // Paddings of key and value, they work the same as the paddings of the text views in KeyValueView
+    private final Rect keyPadding = new Rect(), valuePadding = new Rect();
+
+    // Cached layouts, rebuilt only when the text, paint or width changes
+    private StaticLayout keyLayout, valueLayout;
+    private int keyDesiredWidth = -1, valueDesiredWidth = -1;
+
+    // To handle sizes
+    private float dpi;
+
+    // Prefer method set value over property set
+    private boolean methodSetValue = false;
+
+    // Method of app:methodForValue executing in background
+    private MethodForValueCache.Request methodRequest;
+
+    /**
+     * Constructor
+     * @param context Context
+     */
+    public FlatKeyValueView(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Constructor
+     * @param context Context
+     * @param attributeSet AttributeSet
+     */
+    public FlatKeyValueView(Context context, AttributeSet attributeSet) {
+        this(context, attributeSet, R.attr.keyValueViewStyle);
+    }
+
+    /**
+     * Constructor
+     * @param context Context
+     * @param attributeSet AttributeSet
+     * @param defStyle Theme attribute pointing to the default style, like app:keyValueViewStyle
+     */
+    public FlatKeyValueView(Context context, AttributeSet attributeSet, int defStyle) {
+        super(context, attributeSet, defStyle);
+
+        dpi = (float) Resources.getSystem().getDisplayMetrics().densityDpi/(float) DisplayMetrics.DENSITY_DEFAULT;
+
+        long start = WidgetMetrics.begin(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.INFLATE);
+
+        // Same defaults as R.layout.key_value_view
+        Resources resources = context.getResources();
+        int spacing = resources.getDimensionPixelSize(R.dimen.spacing);
+        keyPadding.set(spacing, spacing, spacing, spacing);
+        valuePadding.set(spacing, spacing, spacing, spacing);
+
+        keyColors = TextLayouts.applyTextAppearance(context, keyPaint, android.R.attr.textAppearance);
+        valueColors = TextLayouts.applyTextAppearance(context, valuePaint, android.R.attr.textAppearanceSmall);
+        keyPaint.setTextSize(resources.getDimension(R.dimen.keySize));
+        valuePaint.setTextSize(resources.getDimension(R.dimen.valueSize));
+        keyText = resources.getString(R.string.default_key_text);
+        valueText = resources.getString(R.string.default_value_text);
+        WidgetMetrics.end(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.INFLATE, start);
+
+        start = WidgetMetrics.begin(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.ATTRIBUTES);
+        processProperties(context, attributeSet, defStyle);
+        WidgetMetrics.end(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.ATTRIBUTES, start);
+    }
+
+    private void processProperties(Context context, AttributeSet attributeSet, int defStyle) {
+        // Views created in code only have the default style, which is resolved once per theme
+        if (attributeSet == null) {
+            if (defStyle != 0) setStyle(KeyValueStyle.fromTheme(context, defStyle));
+            return;
+        }
+
+        TypedArray typedArray = context.obtainStyledAttributes(attributeSet, R.styleable.KeyValueView, defStyle, 0);
+
+        if (typedArray != null) {
+            boolean methodAsync = typedArray.getBoolean(R.styleable.KeyValueView_methodForValueAsync, false);
+            String asyncMethodName = null;
+
+            int count = typedArray.getIndexCount();
+            for (int i = 0; i < count; i++) {
+                int property = typedArray.getIndex(i);
+
+                if (property == R.styleable.KeyValueView_keyText) {
+                    setKeyText(typedArray.getText(property).toString());
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_valueText) {
+                    if (!methodSetValue) setValueText(typedArray.getText(property).toString());
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_keySize) {
+                    setKeySize(typedArray.getDimension(property, keyPaint.getTextSize()));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_valueSize) {
+                    setValueSize(typedArray.getDimension(property, valuePaint.getTextSize()));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_keyEnabled) {
+                    setEnabled(typedArray.getBoolean(property, true), valueEnabled);
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_valueEnabled) {
+                    setEnabled(keyEnabled, typedArray.getBoolean(property, true));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_keyStyle) {
+                    setKeyTypeface(getKeyTypeface(), typedArray.getInt(property, -1));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_valueStyle) {
+                    setValueTypeface(getValueTypeface(), typedArray.getInt(property, -1));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_absoluteSpacing) {
+                    setAbsoluteSpacing(typedArray.getDimensionPixelSize(property, 1));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_absoluteSpacingTop) {
+                    setAbsoluteSpacing(typedArray.getDimensionPixelSize(property, 1), valuePadding.top);
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_absoluteSpacingBottom) {
+                    setAbsoluteSpacing(keyPadding.bottom, typedArray.getDimensionPixelSize(property, 1));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_relativeSpacing) {
+                    setRelativeSpacing(typedArray.getDimensionPixelSize(property, 1));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_relativeSpacingTop) {
+                    setRelativeSpacing(typedArray.getDimensionPixelSize(property, 1), valuePadding.top);
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_relativeSpacingBottom) {
+                    setRelativeSpacing(keyPadding.bottom, typedArray.getDimensionPixelSize(property, 1));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_keyTextColor) {
+                    setKeyTextColor(typedArray.getColor(property, getCurrentKeyTextColor()));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_valueTextColor) {
+                    setValueTextColor(typedArray.getColor(property, getCurrentValueTextColor()));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_keyBackgroundColor) {
+                    setKeyBackgroundColor(typedArray.getColor(property, keyBackgroundColor));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_valueBackgroundColor) {
+                    setValueBackgroundColor(typedArray.getColor(property, valueBackgroundColor));
+                    continue;
+                }
+                if (property == R.styleable.KeyValueView_methodForValue) {
+                    if (context.isRestricted()) throw new IllegalStateException("The app:methodForValue cannot be used in a restricted context");
+
+                    String methodName = typedArray.getString(property);
+                    if (methodName != null) {
+                        // Run once everything else is set, so that nothing set later cancels it
+                        if (methodAsync) asyncMethodName = methodName;
+                        else processMethod(methodName);
+                    }
+                }
+                if (property == R.styleable.KeyValueView_keyAppearance) {
+                    setKeyTextAppearance(typedArray.getResourceId(property, android.R.attr.textAppearance));
+                }
+                if (property == R.styleable.KeyValueView_valueAppearance) {
+                    setValueTextAppearance(typedArray.getResourceId(property, android.R.attr.textAppearanceSmall));
+                }
+            }
+
+            if (asyncMethodName != null) {
+                processMethodAsync(asyncMethodName, typedArray.getString(R.styleable.KeyValueView_methodPlaceholder),
+                        typedArray.getInt(R.styleable.KeyValueView_methodTimeout, 0),
+                        typedArray.getInt(R.styleable.KeyValueView_methodCacheTtl, 0));
+            }
+            typedArray.recycle();
+        }
+    }
+
+    private void processMethod(@NonNull String methodName) {
+        long start = WidgetMetrics.begin(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.METHOD_FOR_VALUE);
+        String value = MethodForValueCache.invoke(getContext(), methodName);
+        WidgetMetrics.end(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.METHOD_FOR_VALUE, start);
+        if (value != null) {
+            setValueText(value);
+            methodSetValue = true;
+        }
+    }
+
+    /**
+     * Executes the method in background, showing the placeholder meanwhile
+     */
+    private void processMethodAsync(@NonNull String methodName, @Nullable String placeholder, long timeoutMillis, long ttlMillis) {
+        if (placeholder != null) setValueText(placeholder);
+
+        // Not timed, the view does not wait for the method, see WidgetMetrics.METHOD_FOR_VALUE
+        methodRequest = MethodForValueCache.invokeAsync(getContext(), methodName, timeoutMillis, ttlMillis,
+                new MethodForValueCache.ValueCallback() {
+                    @Override
+                    public void onValue(@Nullable String value) {
+                        methodRequest = null;
+                        if (value != null) applyMethodValue(value);
+                    }
+                });
+    }
+
+    private void applyMethodValue(@NonNull String text) {
+        if (TextUtils.equals(valueText, text)) return;
+
+        valueText = text;
+        invalidateValue();
+    }
+
+    /**
+     * Drops the cached key layout, so that it is rebuilt on next measure
+     */
+    private void invalidateKey() {
+        keyLayout = null;
+        keyDesiredWidth = -1;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Drops the cached value layout, so that it is rebuilt on next measure
+     */
+    private void invalidateValue() {
+        valueLayout = null;
+        valueDesiredWidth = -1;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Applies a style to this view
+     * Share the same style among the views having the same look, instead of setting the properties on each
+     * @param style Style
+     */
+    public void setStyle(@NonNull KeyValueStyle style) {
+        style.apply(this);
+    }
+
+    @Override
+    public void requestLayout() {
+        LayoutStats.onLayoutRequested(WidgetMetrics.FLAT_KEY_VALUE_VIEW, this);
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        LayoutStats.onMeasured(WidgetMetrics.FLAT_KEY_VALUE_VIEW, this);
+        long start = WidgetMetrics.begin(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.MEASURE);
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+
+        if (keyDesiredWidth < 0) keyDesiredWidth = TextLayoutCache.desiredWidth(keyText, keyPaint);
+        if (valueDesiredWidth < 0) valueDesiredWidth = TextLayoutCache.desiredWidth(valueText, valuePaint);
+
+        int keyWidth = keyDesiredWidth, valueWidth = valueDesiredWidth;
+        if (widthMode != MeasureSpec.UNSPECIFIED) {
+            keyWidth = Math.min(keyWidth, widthSize - horizontalPadding - keyPadding.left - keyPadding.right);
+            valueWidth = Math.min(valueWidth, widthSize - horizontalPadding - valuePadding.left - valuePadding.right);
+        }
+
+        if (keyLayout == null || keyLayout.getWidth() != Math.max(keyWidth, 0)) {
+            keyLayout = TextLayoutCache.obtain(keyText, keyPaint, keyWidth);
+        }
+        if (valueLayout == null || valueLayout.getWidth() != Math.max(valueWidth, 0)) {
+            valueLayout = TextLayoutCache.obtain(valueText, valuePaint, valueWidth);
+        }
+
+        int width = Math.max(keyLayout.getWidth() + keyPadding.left + keyPadding.right,
+                valueLayout.getWidth() + valuePadding.left + valuePadding.right) + horizontalPadding;
+        int height = getPaddingTop() + getPaddingBottom()
+                + keyPadding.top + keyLayout.getHeight() + keyPadding.bottom
+                + valuePadding.top + valueLayout.getHeight() + valuePadding.bottom;
+
+        setMeasuredDimension(resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+        WidgetMetrics.end(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.MEASURE, start);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        if (keyLayout == null || valueLayout == null) return;
+
+        long start = WidgetMetrics.begin(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.DRAW);
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        int[] drawableState = getDrawableState();
+        TextLayouts.applyColor(keyPaint, keyColors, keyEnabled, drawableState);
+        TextLayouts.applyColor(valuePaint, valueColors, valueEnabled, drawableState);
+        top = TextLayouts.draw(canvas, keyLayout, keyPaint, backgroundPaint, keyBackgroundColor, keyPadding, left, top);
+        TextLayouts.draw(canvas, valueLayout, valuePaint, backgroundPaint, valueBackgroundColor, valuePadding, left, top);
+        WidgetMetrics.end(WidgetMetrics.FLAT_KEY_VALUE_VIEW, WidgetMetrics.DRAW, start);
+    }
+
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+        event.setClassName(FlatKeyValueView.class.getName());
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        if (!TextUtils.isEmpty(keyText)) event.getText().add(keyText);
+        if (!TextUtils.isEmpty(valueText)) event.getText().add(valueText);
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        info.setClassName(FlatKeyValueView.class.getName());
+        if (getContentDescription() == null) info.setContentDescription(keyText + " " + valueText);
+    }
+
+    /**
+     * Sets text of the <strong>Key</strong>
+     * @param text Text to set
+     */
+    public void setKeyText(@NonNull CharSequence text) {
+        if (TextUtils.equals(keyText, text)) return;
+
+        keyText = text;
+        invalidateKey();
+    }
+
+    /**
+     * Sets text of the <strong>Key</strong>
+     * @param resId String resource id
+     */
+    public void setKeyText(@StringRes int resId) {
+        setKeyText(getResources().getText(resId));
+    }
+
+    /**
+     * Sets text of the <strong>Value</strong>
+     * @param text Text to set
+     */
+    public void setValueText(@NonNull CharSequence text) {
+        if (methodRequest != null) {
+            methodRequest.cancel();
+            methodRequest = null;
+        }
+        if (TextUtils.equals(valueText, text)) return;
+
+        valueText = text;
+        invalidateValue();
+    }
+
+    /**
+     * Sets text of the <strong>Value</strong>
+     * @param resId String resource id
+     */
+    public void setValueText(@StringRes int resId) {
+        setValueText(getResources().getText(resId));
+    }
+
+    /**
+     * Gets text of the key
+     * @return Key text
+     */
+    public CharSequence getKeyText() {
+        return keyText;
+    }
+
+    /**
+     * Gets text of the value
+     * @return Value text
+     */
+    public CharSequence getValueText() {
+        return valueText;
+    }
+
+    /**
+     * Enables or disables each part as needed
+     * @param keyEnabled Whether or not to enable Key
+     * @param valueEnabled Whether or not to enable Value
+     */
+    public void setEnabled(boolean keyEnabled, boolean valueEnabled) {
+        this.keyEnabled = keyEnabled;
+        this.valueEnabled = valueEnabled;
+
+        // Disable the entire view if all of them are false
+        // Enable if any one of them is true
+        super.setEnabled(keyEnabled | valueEnabled);
+        invalidate();
+    }
+
+    /**
+     * Enables or disables the entire view
+     * @param enabled Whether or not to enable this view
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.setEnabled(enabled, enabled);
+    }
+
+    /**
+     * Sets Key size
+     * @param size Size
+     */
+    public void setKeySize(float size) {
+        keyPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, getResources().getDisplayMetrics()));
+        invalidateKey();
+    }
+
+    /**
+     * Sets Value size
+     * @param size Size
+     */
+    public void setValueSize(float size) {
+        valuePaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, getResources().getDisplayMetrics()));
+        invalidateValue();
+    }
+
+    /**
+     * Sets the padding of the key and the value
+     * @param dp Padding in dp
+     */
+    public void setPadding(int dp) {
+        keyPadding.set(dp, dp, dp, dp);
+        valuePadding.set(dp, dp, dp, dp);
+        invalidateKey();
+        invalidateValue();
+    }
+
+    /**
+     * Sets absolute vertical spacing in between the Key and Value
+     * The passed parameters are applied directly
+     * @param spacingBelowKey Spacing below key in dp
+     * @param spacingAboveValue Spacing above value in dp
+     */
+    public void setAbsoluteSpacing(int spacingBelowKey, int spacingAboveValue) {
+        if (keyPadding.bottom == spacingBelowKey && valuePadding.top == spacingAboveValue) return;
+
+        keyPadding.bottom = spacingBelowKey;
+        valuePadding.top = spacingAboveValue;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Sets absolute vertical spacing in between the Key and Value
+     * @param spacing Spacing in dp
+     */
+    public void setAbsoluteSpacing(int spacing) {
+        setAbsoluteSpacing(spacing, spacing);
+    }
+
+    /**
+     * Sets relative spacing in between the Key and Value
+     * Use this to increase or decrease the spacing
+     * A positive value means spacing will be increased, a negative value
+     * @param spacingBelowKey Spacing in dp
+     * @param spacingAboveValue Spacing in dp
+     */
+    public void setRelativeSpacing(int spacingBelowKey, int spacingAboveValue) {
+        setAbsoluteSpacing(keyPadding.bottom + spacingBelowKey, valuePadding.top + spacingAboveValue);
+    }
+
+    /**
+     * Sets relative spacing in between the Key and Value
+     * Use this to increase or decrease the spacing
+     * A positive value means spacing will be increased, a negative value
+     * @param spacing Spacing in dp
+     */
+    public void setRelativeSpacing(int spacing) {
+        setRelativeSpacing(spacing, spacing);
+    }
+
+    /**
+     * Sets typeface for Key
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setKeyTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(keyPaint, typeface, style);
+        invalidateKey();
+    }
+
+    /**
+     * Sets typeface for Value
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setValueTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(valuePaint, typeface, style);
+        invalidateValue();
+    }
+
+    /**
+     * Gets typeface of key
+     * @return Key typeface
+     */
+    public Typeface getKeyTypeface() {
+        return keyPaint.getTypeface();
+    }
+
+    /**
+     * Gets value typeface
+     * @return Value typeface
+     */
+    public Typeface getValueTypeface() {
+        return valuePaint.getTypeface();
+    }
+
+    /**
+     * Sets text color of key
+     * @param color Color to set
+     */
+    public void setKeyTextColor(int color) {
+        keyColors = ColorStateList.valueOf(color);
+        invalidate();
+    }
+
+    /**
+     * Sets text color of value
+     * @param color Color to set
+     */
+    public void setValueTextColor(int color) {
+        valueColors = ColorStateList.valueOf(color);
+        invalidate();
+    }
+
+    /**
+     * Gets the color the key is currently drawn with
+     * @return Key color
+     */
+    public int getCurrentKeyTextColor() {
+        return keyColors != null ? keyColors.getColorForState(getDrawableState(), keyColors.getDefaultColor()) : keyPaint.getColor();
+    }
+
+    /**
+     * Gets the color the value is currently drawn with
+     * @return Value color
+     */
+    public int getCurrentValueTextColor() {
+        return valueColors != null ? valueColors.getColorForState(getDrawableState(), valueColors.getDefaultColor()) : valuePaint.getColor();
+    }
+
+    /**
+     * Sets background color of key
+     * @param color Color to set
+     */
+    public void setKeyBackgroundColor(int color) {
+        keyBackgroundColor = color;
+        invalidate();
+    }
+
+    /**
+     * Sets background color of value
+     * @param color Color to set
+     */
+    public void setValueBackgroundColor(int color) {
+        valueBackgroundColor = color;
+        invalidate();
+    }
+
+    /**
+     * Sets text appearance of key
+     * @param appearance Appearance
+     */
+    public void setKeyTextAppearance(@StyleRes int appearance) {
+        ColorStateList colors = TextLayouts.applyTextAppearance(getContext(), keyPaint, appearance);
+        if (colors != null) keyColors = colors;
+        invalidateKey();
+    }
+
+    /**
+     * Sets text appearance of value
+     * @param appearance Appearance
+     */
+    public void setValueTextAppearance(@StyleRes int appearance) {
+        ColorStateList colors = TextLayouts.applyTextAppearance(getContext(), valuePaint, appearance);
+        if (colors != null) valueColors = colors;
+        invalidateValue();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies updates coming from any thread once per frame on the main thread
+ * Updates scheduled before a frame are all applied in a single Choreographer callback,
+ * so any number of them costs one main thread message and at most one layout pass.
+ */
+
+final class FrameUpdates {
+    /**
+     * A pending update
+     */
+    interface Update {
+        /**
+         * Applies the update, called on the main thread at the start of a frame
+         * @param frameTimeNanos Time of the frame, in System.nanoTime() base
+         * @return 0 if it is done, otherwise the nanoseconds to wait before applying it again
+         */
+        long apply(long frameTimeNanos);
+    }
+
+    private static final ConcurrentLinkedQueue<Update> updates = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean frameRequested = new AtomicBoolean();
+
+    private static final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameRequested.set(false);
+
+            // Updates scheduled meanwhile are applied as well, they have missed nothing
+            Update update;
+            while ((update = updates.poll()) != null) {
+                long wait = update.apply(frameTimeNanos);
+                if (wait > 0) scheduleLater(update, wait);
+            }
+        }
+    };
+
+    private static final Runnable requestFrame = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    };
+
+    private FrameUpdates() {
+    }
+
+    /**
+     * Schedules the update for the next frame, from any thread
+     * The caller should avoid scheduling an update which is still pending
+     * @param update Update
+     */
+    static void schedule(@NonNull Update update) {
+        updates.add(update);
+
+        if (frameRequested.compareAndSet(false, true)) {
+            if (WidgetExecutors.isMainThread()) requestFrame.run();
+            else WidgetExecutors.main().post(requestFrame);
+        }
+    }
+
+    private static void scheduleLater(@NonNull final Update update, long delayNanos) {
+        WidgetExecutors.main().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                schedule(update);
+            }
+        }, Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos)));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.recyclerview.extensions.AsyncDifferConfig;
+import android.support.v7.recyclerview.extensions.AsyncListDiffer;
+import android.support.v7.util.AdapterListUpdateCallback;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RecyclerView adapter showing a list of KeyValueItems in KeyValueViews
+ * Use it instead of stacking KeyValueViews in a ScrollView, so that only the visible rows exist.
+ * Updates are diffed on a background thread and only the rows which changed are rebound.
+ * Items are the same if their keys are, so keys are expected to be unique in a list.
+ */
+
+public class KeyValueAdapter extends RecyclerView.Adapter<KeyValueAdapter.ViewHolder> {
+    /**
+     * View type of the rows
+     */
+    public static final int VIEW_TYPE_KEY_VALUE = R.layout.key_value_view;
+
+    private static final DiffUtil.ItemCallback<KeyValueItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<KeyValueItem>() {
+        @Override
+        public boolean areItemsTheSame(KeyValueItem oldItem, KeyValueItem newItem) {
+            return oldItem.getKey().equals(newItem.getKey());
+        }
+
+        @Override
+        public boolean areContentsTheSame(KeyValueItem oldItem, KeyValueItem newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    private final AsyncListDiffer<KeyValueItem> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                    .setBackgroundThreadExecutor(WidgetExecutors.background())
+                    .build());
+
+    // Style shared by all the rows
+    private KeyValueStyle style;
+
+    /**
+     * Holds a row
+     */
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        private final KeyValueView keyValueView;
+
+        public ViewHolder(@NonNull KeyValueView keyValueView) {
+            super(keyValueView);
+            this.keyValueView = keyValueView;
+        }
+
+        /**
+         * Gets the view of this row
+         * @return KeyValueView
+         */
+        public KeyValueView getKeyValueView() {
+            return keyValueView;
+        }
+    }
+
+    /**
+     * Sets the items to show
+     * The difference to the current items is computed on a background thread and
+     * applied when done. The list is copied, so it can be reused by the caller.
+     * @param items Items
+     */
+    public void submitList(@NonNull List<KeyValueItem> items) {
+        differ.submitList(Collections.unmodifiableList(new ArrayList<>(items)));
+    }
+
+    /**
+     * Gets the items shown currently
+     * @return Immutable list of items
+     */
+    @NonNull
+    public List<KeyValueItem> getItems() {
+        return differ.getCurrentList();
+    }
+
+    /**
+     * Gets the item at the position
+     * @param position Position
+     * @return Item
+     */
+    @NonNull
+    public KeyValueItem getItem(int position) {
+        return differ.getCurrentList().get(position);
+    }
+
+    /**
+     * Sets the style of the rows, applied once when a row is created
+     * Set it before the rows are created, that is before setting this adapter on a RecyclerView
+     * @param style Style, null for the default style
+     */
+    public void setStyle(@Nullable KeyValueStyle style) {
+        this.style = style;
+    }
+
+    /**
+     * Fills the view pool of the RecyclerView with rows ahead of time, so that they are not
+     * inflated when the list is first shown or scrolled
+     * Rows are created one at a time whenever the main thread is idle
+     * Must be called from the main thread, after setting this adapter on the RecyclerView
+     * @param recyclerView RecyclerView using this adapter
+     * @param count Number of rows to create
+     */
+    public void prewarm(@NonNull final RecyclerView recyclerView, final int count) {
+        final RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        pool.setMaxRecycledViews(VIEW_TYPE_KEY_VALUE, count);
+
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            private int created = 0;
+
+            @Override
+            public boolean queueIdle() {
+                if (created >= count) return false;
+
+                pool.putRecycledView(createViewHolder(recyclerView, VIEW_TYPE_KEY_VALUE));
+                created++;
+
+                return created < count;
+            }
+        });
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_KEY_VALUE;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        KeyValueView keyValueView = new KeyValueView(parent.getContext());
+        keyValueView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        if (style != null) keyValueView.setStyle(style);
+
+        return new ViewHolder(keyValueView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        KeyValueItem item = getItem(position);
+        holder.keyValueView.setKeyText(item.getKey());
+        holder.keyValueView.setValueText(item.getValue());
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+}
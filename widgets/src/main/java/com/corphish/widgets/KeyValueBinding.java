@@ -0,0 +1,150 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.corphish.widgets.annotations.KeyValueBinder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds a model to KeyValueViews or a KeyValueGroupView through the KeyValueBinder generated for it
+ * Members of the model marked with KeyValue are read by the generated code, without reflection.
+ * The values bound last are remembered, binding again only updates the rows whose values changed.
+ * Use it from the main thread.
+ * @param <T> Model
+ */
+
+public final class KeyValueBinding<T> {
+    private final KeyValueBinder<T> binder;
+    private final KeyValueView[] views;
+    private final KeyValueGroupView groupView;
+
+    // Values bound last, valid once bound
+    private final String[] values;
+    private boolean bound = false;
+
+    /**
+     * Constructor, binding each row to a KeyValueView
+     * @param binder Generated binder of the model, like new Product_KeyValueBinder()
+     * @param views Views, one per row in the order of the rows
+     */
+    public KeyValueBinding(@NonNull KeyValueBinder<T> binder, @NonNull KeyValueView... views) {
+        if (views.length != binder.getRowCount()) {
+            throw new IllegalArgumentException("The model has " + binder.getRowCount() + " rows, but "
+                    + views.length + " views were given");
+        }
+
+        this.binder = binder;
+        this.views = views.clone();
+        this.groupView = null;
+        values = new String[views.length];
+    }
+
+    /**
+     * Constructor, binding all rows to a KeyValueGroupView
+     * @param binder Generated binder of the model, like new Product_KeyValueBinder()
+     * @param groupView View showing the rows
+     */
+    public KeyValueBinding(@NonNull KeyValueBinder<T> binder, @NonNull KeyValueGroupView groupView) {
+        this.binder = binder;
+        this.views = null;
+        this.groupView = groupView;
+        values = new String[binder.getRowCount()];
+    }
+
+    /**
+     * Shows the model
+     * The first time all rows are set, afterwards only the rows whose values changed
+     * @param model Model
+     */
+    public void bind(@NonNull T model) {
+        if (!bound) {
+            bindAll(model);
+            bound = true;
+            return;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            String value = valueOf(model, i);
+            if (value.equals(values[i])) continue;
+
+            values[i] = value;
+            if (views != null) views[i].setValueText(value);
+            else groupView.setValue(i, value);
+        }
+    }
+
+    /**
+     * Forgets the values bound, the next bind() sets all rows again
+     * Use it if the views were changed by something else meanwhile
+     */
+    public void reset() {
+        bound = false;
+    }
+
+    private void bindAll(T model) {
+        if (views != null) {
+            Context context = views.length > 0 ? views[0].getContext() : null;
+            for (int i = 0; i < views.length; i++) {
+                values[i] = valueOf(model, i);
+                views[i].setKeyText(keyOf(context, binder, i));
+                views[i].setValueText(values[i]);
+            }
+        } else {
+            List<KeyValueItem> items = toItems(groupView.getContext(), binder, model);
+            for (int i = 0; i < values.length; i++) values[i] = items.get(i).getValue();
+            groupView.setItems(items);
+        }
+    }
+
+    private String valueOf(T model, int row) {
+        String value = binder.getValue(model, row);
+        return value != null ? value : "";
+    }
+
+    private static String keyOf(Context context, KeyValueBinder<?> binder, int row) {
+        int label = binder.getLabel(row);
+        return label != 0 ? context.getString(label) : binder.getKey(row);
+    }
+
+    /**
+     * Reads the rows of a model, for a KeyValueAdapter, a WidgetSnapshotRenderer and the like
+     * @param context Context, to resolve the labels
+     * @param binder Generated binder of the model
+     * @param model Model
+     * @param <T> Model
+     * @return Rows
+     */
+    @NonNull
+    public static <T> List<KeyValueItem> toItems(@NonNull Context context, @NonNull KeyValueBinder<T> binder, @NonNull T model) {
+        int count = binder.getRowCount();
+        List<KeyValueItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String value = binder.getValue(model, i);
+            items.add(new KeyValueItem(keyOf(context, binder, i), value != null ? value : ""));
+        }
+
+        return items;
+    }
+}
@@ -0,0 +1,623 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.support.v4.view.ViewCompat;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Key Value group view
+ * Shows any number of key value rows in a single view, each row looking like a FlatKeyValueView
+ * All rows share the same paints and style, so the look is set once for the whole group
+ * Changing a single row only lays out that row again, and only the rows inside the clip are drawn
+ * Use this for spec sheets, summaries and the like, instead of stacking KeyValueViews
+ */
+
+public class KeyValueGroupView extends View {
+    /**
+     * A row with its cached layouts
+     */
+    private static class Row {
+        KeyValueItem item;
+        StaticLayout keyLayout, valueLayout;
+        int keyDesiredWidth = -1, valueDesiredWidth = -1;
+
+        // Relative to the top padding of the view
+        int top, width, height;
+
+        Row(KeyValueItem item) {
+            this.item = item;
+        }
+    }
+
+    // Paints shared by all rows
+    private final TextPaint keyPaint = TextLayouts.newPaint(), valuePaint = TextLayouts.newPaint();
+    private final Paint backgroundPaint = new Paint();
+
+    // Colors of key and value
+    private ColorStateList keyColors, valueColors;
+    private int keyBackgroundColor = Color.TRANSPARENT, valueBackgroundColor = Color.TRANSPARENT;
+    private boolean keyEnabled = true, valueEnabled = true;
+
+    // Paddings of key and value, same as in FlatKeyValueView
+    private final Rect keyPadding = new Rect(), valuePadding = new Rect();
+
+    private final List<Row> rows = new ArrayList<>();
+
+    // Width available to the rows in the last measure, -1 if unbounded
+    private int availableWidth = -1;
+    private int lastWidthMode = MeasureSpec.UNSPECIFIED;
+
+    // To handle sizes
+    private float dpi;
+
+    private final Rect clip = new Rect();
+
+    /**
+     * Constructor
+     * @param context Context
+     */
+    public KeyValueGroupView(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Constructor
+     * @param context Context
+     * @param attributeSet AttributeSet
+     */
+    public KeyValueGroupView(Context context, AttributeSet attributeSet) {
+        this(context, attributeSet, R.attr.keyValueViewStyle);
+    }
+
+    /**
+     * Constructor
+     * @param context Context
+     * @param attributeSet AttributeSet
+     * @param defStyle Theme attribute pointing to the default style, like app:keyValueViewStyle
+     */
+    public KeyValueGroupView(Context context, AttributeSet attributeSet, int defStyle) {
+        super(context, attributeSet, defStyle);
+
+        dpi = (float) Resources.getSystem().getDisplayMetrics().densityDpi/(float) DisplayMetrics.DENSITY_DEFAULT;
+
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.INFLATE);
+
+        // Same defaults as FlatKeyValueView
+        Resources resources = context.getResources();
+        int spacing = resources.getDimensionPixelSize(R.dimen.spacing);
+        keyPadding.set(spacing, spacing, spacing, spacing);
+        valuePadding.set(spacing, spacing, spacing, spacing);
+
+        keyColors = TextLayouts.applyTextAppearance(context, keyPaint, android.R.attr.textAppearance);
+        valueColors = TextLayouts.applyTextAppearance(context, valuePaint, android.R.attr.textAppearanceSmall);
+        keyPaint.setTextSize(resources.getDimension(R.dimen.keySize));
+        valuePaint.setTextSize(resources.getDimension(R.dimen.valueSize));
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.INFLATE, start);
+
+        start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.ATTRIBUTES);
+        processProperties(context, attributeSet, defStyle);
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.ATTRIBUTES, start);
+    }
+
+    private void processProperties(Context context, AttributeSet attributeSet, int defStyle) {
+        // Views created in code only have the default style, which is resolved once per theme
+        if (attributeSet == null) {
+            if (defStyle != 0) setStyle(KeyValueStyle.fromTheme(context, defStyle));
+            return;
+        }
+
+        TypedArray typedArray = context.obtainStyledAttributes(attributeSet, R.styleable.KeyValueView, defStyle, 0);
+        if (typedArray != null) {
+            setStyle(KeyValueStyle.fromAttributes(context, typedArray));
+            typedArray.recycle();
+        }
+
+        typedArray = context.obtainStyledAttributes(attributeSet, R.styleable.KeyValueGroupView);
+        if (typedArray != null) {
+            CharSequence[] keys = typedArray.getTextArray(R.styleable.KeyValueGroupView_keyEntries);
+            CharSequence[] values = typedArray.getTextArray(R.styleable.KeyValueGroupView_valueEntries);
+            typedArray.recycle();
+
+            if (keys != null) {
+                List<KeyValueItem> items = new ArrayList<>(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    String value = values != null && i < values.length ? values[i].toString() : "";
+                    items.add(new KeyValueItem(keys[i].toString(), value));
+                }
+                setItems(items);
+            }
+        }
+    }
+
+    /**
+     * Sets the rows of this view
+     * Rows equal to the ones already shown at the same position keep their layouts
+     * @param items Rows
+     */
+    public void setItems(@NonNull List<KeyValueItem> items) {
+        int count = items.size();
+        boolean changed = count != rows.size();
+
+        for (int i = 0; i < count; i++) {
+            KeyValueItem item = items.get(i);
+            if (i < rows.size()) {
+                if (rows.get(i).item.equals(item)) continue;
+                rows.set(i, new Row(item));
+            } else {
+                rows.add(new Row(item));
+            }
+            changed = true;
+        }
+        while (rows.size() > count) rows.remove(rows.size() - 1);
+
+        if (changed) {
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * Replaces a single row
+     * Only that row is laid out again, and if its size stays the same, only that row is redrawn
+     * @param index Position of the row
+     * @param item New row
+     */
+    public void setItem(int index, @NonNull KeyValueItem item) {
+        Row row = rows.get(index);
+        if (row.item.equals(item)) return;
+
+        boolean keyChanged = !row.item.getKey().equals(item.getKey());
+        boolean valueChanged = !row.item.getValue().equals(item.getValue());
+        row.item = item;
+        if (keyChanged) {
+            row.keyLayout = null;
+            row.keyDesiredWidth = -1;
+        }
+        if (valueChanged) {
+            row.valueLayout = null;
+            row.valueDesiredWidth = -1;
+        }
+
+        // Not laid out yet, the whole view is laid out anyway
+        if (!ViewCompat.isLaidOut(this)) {
+            requestLayout();
+            return;
+        }
+
+        int width = row.width, height = row.height;
+        buildRow(row);
+
+        if (row.height != height || (lastWidthMode != MeasureSpec.EXACTLY && row.width != width)) {
+            requestLayout();
+            invalidate();
+        } else {
+            int top = getPaddingTop() + row.top;
+            invalidate(getPaddingLeft(), top, getWidth() - getPaddingRight(), top + row.height);
+        }
+    }
+
+    /**
+     * Sets the value of a single row, keeping its key
+     * @param index Position of the row
+     * @param value New value
+     */
+    public void setValue(int index, @NonNull String value) {
+        setItem(index, rows.get(index).item.withValue(value));
+    }
+
+    /**
+     * Gets a row
+     * @param index Position of the row
+     * @return Row
+     */
+    @NonNull
+    public KeyValueItem getItem(int index) {
+        return rows.get(index).item;
+    }
+
+    /**
+     * Gets all rows
+     * @return Rows, not modifiable
+     */
+    @NonNull
+    public List<KeyValueItem> getItems() {
+        List<KeyValueItem> items = new ArrayList<>(rows.size());
+        for (Row row : rows) items.add(row.item);
+
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Number of rows
+     * @return Row count
+     */
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    /**
+     * Applies a style to all rows
+     * @param style Style
+     */
+    public void setStyle(@NonNull KeyValueStyle style) {
+        style.apply(this);
+    }
+
+    /**
+     * Builds the layouts of the row for the width available, if they are not built for it already
+     * @param row Row
+     */
+    private void buildRow(Row row) {
+        if (row.keyDesiredWidth < 0) row.keyDesiredWidth = TextLayoutCache.desiredWidth(row.item.getKey(), keyPaint);
+        if (row.valueDesiredWidth < 0) row.valueDesiredWidth = TextLayoutCache.desiredWidth(row.item.getValue(), valuePaint);
+
+        int keyWidth = row.keyDesiredWidth, valueWidth = row.valueDesiredWidth;
+        if (availableWidth >= 0) {
+            keyWidth = Math.min(keyWidth, availableWidth - keyPadding.left - keyPadding.right);
+            valueWidth = Math.min(valueWidth, availableWidth - valuePadding.left - valuePadding.right);
+        }
+
+        if (row.keyLayout == null || row.keyLayout.getWidth() != Math.max(keyWidth, 0)) {
+            row.keyLayout = TextLayoutCache.obtain(row.item.getKey(), keyPaint, keyWidth);
+        }
+        if (row.valueLayout == null || row.valueLayout.getWidth() != Math.max(valueWidth, 0)) {
+            row.valueLayout = TextLayoutCache.obtain(row.item.getValue(), valuePaint, valueWidth);
+        }
+
+        row.width = Math.max(row.keyLayout.getWidth() + keyPadding.left + keyPadding.right,
+                row.valueLayout.getWidth() + valuePadding.left + valuePadding.right);
+        row.height = keyPadding.top + row.keyLayout.getHeight() + keyPadding.bottom
+                + valuePadding.top + row.valueLayout.getHeight() + valuePadding.bottom;
+    }
+
+    /**
+     * Drops the cached key layouts of all rows
+     */
+    private void invalidateKeys() {
+        for (Row row : rows) {
+            row.keyLayout = null;
+            row.keyDesiredWidth = -1;
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Drops the cached value layouts of all rows
+     */
+    private void invalidateValues() {
+        for (Row row : rows) {
+            row.valueLayout = null;
+            row.valueDesiredWidth = -1;
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    public void requestLayout() {
+        LayoutStats.onLayoutRequested(WidgetMetrics.KEY_VALUE_GROUP_VIEW, this);
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        LayoutStats.onMeasured(WidgetMetrics.KEY_VALUE_GROUP_VIEW, this);
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.MEASURE);
+
+        lastWidthMode = MeasureSpec.getMode(widthMeasureSpec);
+        availableWidth = lastWidthMode == MeasureSpec.UNSPECIFIED ? -1
+                : Math.max(MeasureSpec.getSize(widthMeasureSpec) - getPaddingLeft() - getPaddingRight(), 0);
+
+        // Rows whose layouts fit the width already are only summed up
+        int width = 0, height = 0;
+        for (Row row : rows) {
+            buildRow(row);
+            row.top = height;
+            width = Math.max(width, row.width);
+            height += row.height;
+        }
+        width += getPaddingLeft() + getPaddingRight();
+        height += getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.MEASURE, start);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        if (rows.isEmpty() || !canvas.getClipBounds(clip)) return;
+
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.DRAW);
+        int[] drawableState = getDrawableState();
+        TextLayouts.applyColor(keyPaint, keyColors, keyEnabled, drawableState);
+        TextLayouts.applyColor(valuePaint, valueColors, valueEnabled, drawableState);
+
+        int left = getPaddingLeft();
+        int paddingTop = getPaddingTop();
+        for (int i = firstVisibleRow(clip.top - paddingTop); i < rows.size(); i++) {
+            Row row = rows.get(i);
+            int top = paddingTop + row.top;
+            if (top >= clip.bottom) break;
+            if (row.keyLayout == null || row.valueLayout == null) continue;
+
+            top = TextLayouts.draw(canvas, row.keyLayout, keyPaint, backgroundPaint, keyBackgroundColor, keyPadding, left, top);
+            TextLayouts.draw(canvas, row.valueLayout, valuePaint, backgroundPaint, valueBackgroundColor, valuePadding, left, top);
+        }
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_GROUP_VIEW, WidgetMetrics.DRAW, start);
+    }
+
+    /**
+     * Finds the first row reaching below the given offset
+     * @param offset Offset from the top padding
+     * @return Row position, the row count if there is none
+     */
+    private int firstVisibleRow(int offset) {
+        int low = 0, high = rows.size() - 1, result = rows.size();
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Row row = rows.get(middle);
+            if (row.top + row.height > offset) {
+                result = middle;
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+        event.setClassName(KeyValueGroupView.class.getName());
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        for (Row row : rows) {
+            event.getText().add(row.item.getKey());
+            event.getText().add(row.item.getValue());
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        info.setClassName(KeyValueGroupView.class.getName());
+        if (getContentDescription() == null) {
+            StringBuilder description = new StringBuilder();
+            for (Row row : rows) {
+                if (description.length() > 0) description.append(", ");
+                description.append(row.item.getKey()).append(' ').append(row.item.getValue());
+            }
+            info.setContentDescription(description);
+        }
+    }
+
+    /**
+     * Enables or disables each part of all rows
+     * @param keyEnabled Whether or not to enable the keys
+     * @param valueEnabled Whether or not to enable the values
+     */
+    public void setEnabled(boolean keyEnabled, boolean valueEnabled) {
+        this.keyEnabled = keyEnabled;
+        this.valueEnabled = valueEnabled;
+
+        super.setEnabled(keyEnabled | valueEnabled);
+        invalidate();
+    }
+
+    /**
+     * Enables or disables the entire view
+     * @param enabled Whether or not to enable this view
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.setEnabled(enabled, enabled);
+    }
+
+    /**
+     * Sets Key size
+     * @param size Size
+     */
+    public void setKeySize(float size) {
+        keyPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, getResources().getDisplayMetrics()));
+        invalidateKeys();
+    }
+
+    /**
+     * Sets Value size
+     * @param size Size
+     */
+    public void setValueSize(float size) {
+        valuePaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, getResources().getDisplayMetrics()));
+        invalidateValues();
+    }
+
+    /**
+     * Sets the padding of the keys and the values
+     * @param dp Padding in dp
+     */
+    public void setPadding(int dp) {
+        keyPadding.set(dp, dp, dp, dp);
+        valuePadding.set(dp, dp, dp, dp);
+        invalidateKeys();
+        invalidateValues();
+    }
+
+    /**
+     * Sets absolute vertical spacing in between the Key and Value of each row
+     * @param spacingBelowKey Spacing below key in dp
+     * @param spacingAboveValue Spacing above value in dp
+     */
+    public void setAbsoluteSpacing(int spacingBelowKey, int spacingAboveValue) {
+        if (keyPadding.bottom == spacingBelowKey && valuePadding.top == spacingAboveValue) return;
+
+        keyPadding.bottom = spacingBelowKey;
+        valuePadding.top = spacingAboveValue;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Sets absolute vertical spacing in between the Key and Value of each row
+     * @param spacing Spacing in dp
+     */
+    public void setAbsoluteSpacing(int spacing) {
+        setAbsoluteSpacing(spacing, spacing);
+    }
+
+    /**
+     * Sets relative spacing in between the Key and Value of each row
+     * @param spacingBelowKey Spacing in dp
+     * @param spacingAboveValue Spacing in dp
+     */
+    public void setRelativeSpacing(int spacingBelowKey, int spacingAboveValue) {
+        setAbsoluteSpacing(keyPadding.bottom + spacingBelowKey, valuePadding.top + spacingAboveValue);
+    }
+
+    /**
+     * Sets relative spacing in between the Key and Value of each row
+     * @param spacing Spacing in dp
+     */
+    public void setRelativeSpacing(int spacing) {
+        setRelativeSpacing(spacing, spacing);
+    }
+
+    /**
+     * Sets typeface for the keys
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setKeyTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(keyPaint, typeface, style);
+        invalidateKeys();
+    }
+
+    /**
+     * Sets typeface for the values
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setValueTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(valuePaint, typeface, style);
+        invalidateValues();
+    }
+
+    /**
+     * Gets typeface of the keys
+     * @return Key typeface
+     */
+    public Typeface getKeyTypeface() {
+        return keyPaint.getTypeface();
+    }
+
+    /**
+     * Gets typeface of the values
+     * @return Value typeface
+     */
+    public Typeface getValueTypeface() {
+        return valuePaint.getTypeface();
+    }
+
+    /**
+     * Sets text color of the keys
+     * @param color Color to set
+     */
+    public void setKeyTextColor(int color) {
+        keyColors = ColorStateList.valueOf(color);
+        invalidate();
+    }
+
+    /**
+     * Sets text color of the values
+     * @param color Color to set
+     */
+    public void setValueTextColor(int color) {
+        valueColors = ColorStateList.valueOf(color);
+        invalidate();
+    }
+
+    /**
+     * Sets background color of the keys
+     * @param color Color to set
+     */
+    public void setKeyBackgroundColor(int color) {
+        keyBackgroundColor = color;
+        invalidate();
+    }
+
+    /**
+     * Sets background color of the values
+     * @param color Color to set
+     */
+    public void setValueBackgroundColor(int color) {
+        valueBackgroundColor = color;
+        invalidate();
+    }
+
+    /**
+     * Sets text appearance of the keys
+     * @param appearance Appearance
+     */
+    public void setKeyTextAppearance(@StyleRes int appearance) {
+        ColorStateList colors = TextLayouts.applyTextAppearance(getContext(), keyPaint, appearance);
+        if (colors != null) keyColors = colors;
+        invalidateKeys();
+    }
+
+    /**
+     * Sets text appearance of the values
+     * @param appearance Appearance
+     */
+    public void setValueTextAppearance(@StyleRes int appearance) {
+        ColorStateList colors = TextLayouts.applyTextAppearance(getContext(), valuePaint, appearance);
+        if (colors != null) valueColors = colors;
+        invalidateValues();
+    }
+}
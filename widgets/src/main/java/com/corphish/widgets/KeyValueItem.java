@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+/**
+ * A key and its value, as shown by a KeyValueView
+ * It is immutable, so it can be shared and diffed freely
+ */
+
+public final class KeyValueItem {
+    private final String key, value;
+
+    /**
+     * Constructor
+     * @param key Key text
+     * @param value Value text
+     */
+    public KeyValueItem(@NonNull String key, @NonNull String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * Gets the key
+     * @return Key text
+     */
+    @NonNull
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the value
+     * @return Value text
+     */
+    @NonNull
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns a copy of this item with a different value
+     * @param value Value text
+     * @return New item
+     */
+    @NonNull
+    public KeyValueItem withValue(@NonNull String value) {
+        return TextUtils.equals(this.value, value) ? this : new KeyValueItem(key, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof KeyValueItem)) return false;
+
+        KeyValueItem other = (KeyValueItem) o;
+        return key.equals(other.key) && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * key.hashCode() + value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + value;
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.support.annotation.AttrRes;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.StyleRes;
+import android.util.SparseArray;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable style of a KeyValueView
+ * It holds the look of the view, that is the sizes, text styles, colors, spacing and appearances.
+ * Texts and app:methodForValue are not part of it.
+ * Resolve it once, from a style resource, a theme attribute or code, and share it among
+ * all the views using it. Applying it does not parse any attributes.
+ */
+
+public final class KeyValueStyle {
+    // Which of the properties are set
+    private static final int KEY_SIZE = 1, VALUE_SIZE = 1 << 1;
+    private static final int KEY_STYLE = 1 << 2, VALUE_STYLE = 1 << 3;
+    private static final int KEY_TEXT_COLOR = 1 << 4, VALUE_TEXT_COLOR = 1 << 5;
+    private static final int KEY_BACKGROUND_COLOR = 1 << 6, VALUE_BACKGROUND_COLOR = 1 << 7;
+    private static final int SPACING = 1 << 8;
+    private static final int KEY_APPEARANCE = 1 << 9, VALUE_APPEARANCE = 1 << 10;
+
+    // Resolved styles, per theme and per style resource or theme attribute
+    private static final Map<Resources.Theme, SparseArray<KeyValueStyle>> cache = new WeakHashMap<>();
+
+    private final int properties;
+    private final float keySize, valueSize;
+    private final int keyStyle, valueStyle;
+    private final int keyTextColor, valueTextColor;
+    private final int keyBackgroundColor, valueBackgroundColor;
+    private final int spacingBelowKey, spacingAboveValue;
+    private final int keyAppearance, valueAppearance;
+
+    private KeyValueStyle(Builder builder) {
+        properties = builder.properties;
+        keySize = builder.keySize;
+        valueSize = builder.valueSize;
+        keyStyle = builder.keyStyle;
+        valueStyle = builder.valueStyle;
+        keyTextColor = builder.keyTextColor;
+        valueTextColor = builder.valueTextColor;
+        keyBackgroundColor = builder.keyBackgroundColor;
+        valueBackgroundColor = builder.valueBackgroundColor;
+        spacingBelowKey = builder.spacingBelowKey;
+        spacingAboveValue = builder.spacingAboveValue;
+        keyAppearance = builder.keyAppearance;
+        valueAppearance = builder.valueAppearance;
+    }
+
+    /**
+     * Resolves the style from a style resource having KeyValueView properties
+     * Resolved styles are cached per theme of the context
+     * @param context Context
+     * @param styleRes Style resource
+     * @return Style
+     */
+    @NonNull
+    public static KeyValueStyle fromStyle(@NonNull Context context, @StyleRes int styleRes) {
+        return resolve(context, styleRes, 0, styleRes);
+    }
+
+    /**
+     * Resolves the style from a theme attribute pointing to a style having KeyValueView properties,
+     * like app:keyValueViewStyle
+     * Resolved styles are cached per theme of the context
+     * @param context Context
+     * @param defStyleAttr Theme attribute
+     * @return Style, empty if the theme does not set the attribute
+     */
+    @NonNull
+    public static KeyValueStyle fromTheme(@NonNull Context context, @AttrRes int defStyleAttr) {
+        return resolve(context, 0, defStyleAttr, defStyleAttr);
+    }
+
+    private static KeyValueStyle resolve(Context context, @StyleRes int styleRes, @AttrRes int defStyleAttr, int id) {
+        Resources.Theme theme = context.getTheme();
+
+        synchronized (cache) {
+            SparseArray<KeyValueStyle> styles = cache.get(theme);
+            KeyValueStyle style = styles != null ? styles.get(id) : null;
+            if (style != null) return style;
+        }
+
+        TypedArray typedArray = styleRes != 0
+                ? theme.obtainStyledAttributes(styleRes, R.styleable.KeyValueView)
+                : theme.obtainStyledAttributes(null, R.styleable.KeyValueView, defStyleAttr, 0);
+        KeyValueStyle style = fromAttributes(context, typedArray);
+        typedArray.recycle();
+
+        synchronized (cache) {
+            SparseArray<KeyValueStyle> styles = cache.get(theme);
+            if (styles == null) {
+                styles = new SparseArray<>();
+                cache.put(theme, styles);
+            }
+            styles.put(id, style);
+        }
+
+        return style;
+    }
+
+    /**
+     * Reads the style out of KeyValueView attributes, the ones which are not part of a style are ignored
+     * @param context Context
+     * @param typedArray Attributes
+     * @return Style
+     */
+    @NonNull
+    static KeyValueStyle fromAttributes(@NonNull Context context, @NonNull TypedArray typedArray) {
+        Builder builder = new Builder();
+
+        // Relative spacing is relative to the spacing of R.layout.key_value_view
+        int defaultSpacing = context.getResources().getDimensionPixelSize(R.dimen.spacing);
+        int spacingBelowKey = defaultSpacing, spacingAboveValue = defaultSpacing;
+
+        int count = typedArray.getIndexCount();
+        for (int i = 0; i < count; i++) {
+            int property = typedArray.getIndex(i);
+
+            if (property == R.styleable.KeyValueView_keySize) {
+                builder.setKeySize(typedArray.getDimension(property, 0));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_valueSize) {
+                builder.setValueSize(typedArray.getDimension(property, 0));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_keyStyle) {
+                builder.setKeyStyle(typedArray.getInt(property, -1));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_valueStyle) {
+                builder.setValueStyle(typedArray.getInt(property, -1));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_absoluteSpacing) {
+                spacingBelowKey = spacingAboveValue = typedArray.getDimensionPixelSize(property, 1);
+                builder.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_absoluteSpacingTop) {
+                spacingBelowKey = typedArray.getDimensionPixelSize(property, 1);
+                builder.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_absoluteSpacingBottom) {
+                spacingAboveValue = typedArray.getDimensionPixelSize(property, 1);
+                builder.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_relativeSpacing) {
+                spacingBelowKey += typedArray.getDimensionPixelSize(property, 1);
+                spacingAboveValue += typedArray.getDimensionPixelSize(property, 1);
+                builder.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                continue;
+            }
+            // Resolved like KeyValueView.processProperties(), which offsets the other side by its current spacing
+            if (property == R.styleable.KeyValueView_relativeSpacingTop) {
+                spacingBelowKey += typedArray.getDimensionPixelSize(property, 1);
+                spacingAboveValue += spacingAboveValue;
+                builder.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_relativeSpacingBottom) {
+                spacingBelowKey += spacingBelowKey;
+                spacingAboveValue += typedArray.getDimensionPixelSize(property, 1);
+                builder.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_keyTextColor) {
+                builder.setKeyTextColor(typedArray.getColor(property, 0));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_valueTextColor) {
+                builder.setValueTextColor(typedArray.getColor(property, 0));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_keyBackgroundColor) {
+                builder.setKeyBackgroundColor(typedArray.getColor(property, 0));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_valueBackgroundColor) {
+                builder.setValueBackgroundColor(typedArray.getColor(property, 0));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_keyAppearance) {
+                builder.setKeyTextAppearance(typedArray.getResourceId(property, android.R.attr.textAppearance));
+                continue;
+            }
+            if (property == R.styleable.KeyValueView_valueAppearance) {
+                builder.setValueTextAppearance(typedArray.getResourceId(property, android.R.attr.textAppearanceSmall));
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Applies this style to the view, skipping whatever the view already has
+     * @param view View
+     */
+    void apply(@NonNull KeyValueView view) {
+        // Appearances go first, so that the other properties override them
+        if (isSet(KEY_APPEARANCE)) view.setKeyTextAppearance(keyAppearance);
+        if (isSet(VALUE_APPEARANCE)) view.setValueTextAppearance(valueAppearance);
+
+        KeyValueView.Editor editor = view.edit();
+        if (isSet(KEY_SIZE)) editor.setKeySize(keySize);
+        if (isSet(VALUE_SIZE)) editor.setValueSize(valueSize);
+        if (isSet(KEY_STYLE)) editor.setKeyTypeface(view.getKeyTypeface(), keyStyle);
+        if (isSet(VALUE_STYLE)) editor.setValueTypeface(view.getValueTypeface(), valueStyle);
+        if (isSet(KEY_TEXT_COLOR)) editor.setKeyTextColor(keyTextColor);
+        if (isSet(VALUE_TEXT_COLOR)) editor.setValueTextColor(valueTextColor);
+        if (isSet(KEY_BACKGROUND_COLOR)) editor.setKeyBackgroundColor(keyBackgroundColor);
+        if (isSet(VALUE_BACKGROUND_COLOR)) editor.setValueBackgroundColor(valueBackgroundColor);
+        if (isSet(SPACING)) editor.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+        editor.apply();
+    }
+
+    /**
+     * Applies this style to the view
+     * @param view View
+     */
+    void apply(@NonNull FlatKeyValueView view) {
+        if (isSet(KEY_APPEARANCE)) view.setKeyTextAppearance(keyAppearance);
+        if (isSet(VALUE_APPEARANCE)) view.setValueTextAppearance(valueAppearance);
+        if (isSet(KEY_SIZE)) view.setKeySize(keySize);
+        if (isSet(VALUE_SIZE)) view.setValueSize(valueSize);
+        if (isSet(KEY_STYLE)) view.setKeyTypeface(view.getKeyTypeface(), keyStyle);
+        if (isSet(VALUE_STYLE)) view.setValueTypeface(view.getValueTypeface(), valueStyle);
+        if (isSet(KEY_TEXT_COLOR)) view.setKeyTextColor(keyTextColor);
+        if (isSet(VALUE_TEXT_COLOR)) view.setValueTextColor(valueTextColor);
+        if (isSet(KEY_BACKGROUND_COLOR)) view.setKeyBackgroundColor(keyBackgroundColor);
+        if (isSet(VALUE_BACKGROUND_COLOR)) view.setValueBackgroundColor(valueBackgroundColor);
+        if (isSet(SPACING)) view.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+    }
+
+    /**
+     * Applies this style to all rows of the view
+     * @param view View
+     */
+    void apply(@NonNull KeyValueGroupView view) {
+        if (isSet(KEY_APPEARANCE)) view.setKeyTextAppearance(keyAppearance);
+        if (isSet(VALUE_APPEARANCE)) view.setValueTextAppearance(valueAppearance);
+        if (isSet(KEY_SIZE)) view.setKeySize(keySize);
+        if (isSet(VALUE_SIZE)) view.setValueSize(valueSize);
+        if (isSet(KEY_STYLE)) view.setKeyTypeface(view.getKeyTypeface(), keyStyle);
+        if (isSet(VALUE_STYLE)) view.setValueTypeface(view.getValueTypeface(), valueStyle);
+        if (isSet(KEY_TEXT_COLOR)) view.setKeyTextColor(keyTextColor);
+        if (isSet(VALUE_TEXT_COLOR)) view.setValueTextColor(valueTextColor);
+        if (isSet(KEY_BACKGROUND_COLOR)) view.setKeyBackgroundColor(keyBackgroundColor);
+        if (isSet(VALUE_BACKGROUND_COLOR)) view.setValueBackgroundColor(valueBackgroundColor);
+        if (isSet(SPACING)) view.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+    }
+
+    /**
+     * Applies this style to the rows drawn by the renderer
+     * @param renderer Renderer
+     */
+    void apply(@NonNull WidgetSnapshotRenderer renderer) {
+        if (isSet(KEY_APPEARANCE)) renderer.setKeyTextAppearance(keyAppearance);
+        if (isSet(VALUE_APPEARANCE)) renderer.setValueTextAppearance(valueAppearance);
+        if (isSet(KEY_SIZE)) renderer.setKeySize(keySize);
+        if (isSet(VALUE_SIZE)) renderer.setValueSize(valueSize);
+        if (isSet(KEY_STYLE)) renderer.setKeyTypeface(renderer.getKeyTypeface(), keyStyle);
+        if (isSet(VALUE_STYLE)) renderer.setValueTypeface(renderer.getValueTypeface(), valueStyle);
+        if (isSet(KEY_TEXT_COLOR)) renderer.setKeyTextColor(keyTextColor);
+        if (isSet(VALUE_TEXT_COLOR)) renderer.setValueTextColor(valueTextColor);
+        if (isSet(KEY_BACKGROUND_COLOR)) renderer.setKeyBackgroundColor(keyBackgroundColor);
+        if (isSet(VALUE_BACKGROUND_COLOR)) renderer.setValueBackgroundColor(valueBackgroundColor);
+        if (isSet(SPACING)) renderer.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+    }
+
+    private boolean isSet(int property) {
+        return (properties & property) != 0;
+    }
+
+    /**
+     * Builds a KeyValueStyle in code
+     * Properties which are not set are left as they are on the views
+     */
+    public static class Builder {
+        private int properties = 0;
+        private float keySize, valueSize;
+        private int keyStyle, valueStyle;
+        private int keyTextColor, valueTextColor;
+        private int keyBackgroundColor, valueBackgroundColor;
+        private int spacingBelowKey, spacingAboveValue;
+        private int keyAppearance, valueAppearance;
+
+        public Builder setKeySize(float size) {
+            keySize = size;
+            properties |= KEY_SIZE;
+
+            return this;
+        }
+
+        public Builder setValueSize(float size) {
+            valueSize = size;
+            properties |= VALUE_SIZE;
+
+            return this;
+        }
+
+        public Builder setKeyStyle(int style) {
+            keyStyle = style;
+            properties |= KEY_STYLE;
+
+            return this;
+        }
+
+        public Builder setValueStyle(int style) {
+            valueStyle = style;
+            properties |= VALUE_STYLE;
+
+            return this;
+        }
+
+        public Builder setKeyTextColor(@ColorInt int color) {
+            keyTextColor = color;
+            properties |= KEY_TEXT_COLOR;
+
+            return this;
+        }
+
+        public Builder setValueTextColor(@ColorInt int color) {
+            valueTextColor = color;
+            properties |= VALUE_TEXT_COLOR;
+
+            return this;
+        }
+
+        public Builder setKeyBackgroundColor(@ColorInt int color) {
+            keyBackgroundColor = color;
+            properties |= KEY_BACKGROUND_COLOR;
+
+            return this;
+        }
+
+        public Builder setValueBackgroundColor(@ColorInt int color) {
+            valueBackgroundColor = color;
+            properties |= VALUE_BACKGROUND_COLOR;
+
+            return this;
+        }
+
+        public Builder setAbsoluteSpacing(int spacingBelowKey, int spacingAboveValue) {
+            this.spacingBelowKey = spacingBelowKey;
+            this.spacingAboveValue = spacingAboveValue;
+            properties |= SPACING;
+
+            return this;
+        }
+
+        public Builder setAbsoluteSpacing(int spacing) {
+            return setAbsoluteSpacing(spacing, spacing);
+        }
+
+        public Builder setKeyTextAppearance(@StyleRes int appearance) {
+            keyAppearance = appearance;
+            properties |= KEY_APPEARANCE;
+
+            return this;
+        }
+
+        public Builder setValueTextAppearance(@StyleRes int appearance) {
+            valueAppearance = appearance;
+            properties |= VALUE_APPEARANCE;
+
+            return this;
+        }
+
+        public KeyValueStyle build() {
+            return new KeyValueStyle(this);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Typeface;
 import android.graphics.drawable.ColorDrawable;
@@ -31,14 +32,16 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
 import android.support.annotation.StyleRes;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
-import android.view.LayoutInflater;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Key Value view
@@ -60,6 +63,43 @@ public class KeyValueView extends LinearLayout {
     // Prefer method set value over property set
     boolean methodSetValue = false;
 
+    // Batched edits, layout requests are held back while batching
+    private int batchDepth = 0;
+    private boolean layoutRequestedInBatch = false;
+
+    // Drawables set last, kept to skip setting the same ones again
+    private final int[] keyDrawables = new int[4], valueDrawables = new int[4];
+
+    // Marks drawables which are not known, as relative drawables were set
+    private static final int UNKNOWN_DRAWABLE = -1;
+
+    // Method of app:methodForValue executing in background
+    private MethodForValueCache.Request methodRequest;
+
+    // Numbers set as value are formatted into it, created on first use
+    private NumberChars valueChars;
+
+    // Latest value posted from any thread, applied on the next frame
+    private final AtomicReference<CharSequence> postedValue = new AtomicReference<>();
+    private volatile long minValueIntervalNanos = 0;
+    private long lastPostedValueTime = 0;
+
+    private final FrameUpdates.Update postedValueUpdate = new FrameUpdates.Update() {
+        @Override
+        public long apply(long frameTimeNanos) {
+            long wait = lastPostedValueTime + minValueIntervalNanos - frameTimeNanos;
+            if (lastPostedValueTime != 0 && wait > 0) return wait;
+
+            CharSequence text = postedValue.getAndSet(null);
+            if (text != null) {
+                lastPostedValueTime = frameTimeNanos;
+                applyValueText(text);
+            }
+
+            return 0;
+        }
+    };
+
     /**
      * Constructor
      * @param context Context
@@ -74,32 +114,47 @@ public class KeyValueView extends LinearLayout {
      * @param attributeSet AttributeSet
      */
     public KeyValueView(Context context, AttributeSet attributeSet) {
-        this(context, attributeSet, 0);
+        this(context, attributeSet, R.attr.keyValueViewStyle);
     }
 
     /**
      * Constructor
      * @param context Context
      * @param attributeSet AttributeSet
-     * @param defStyle Default Style
+     * @param defStyle Theme attribute pointing to the default style, like app:keyValueViewStyle
      */
     public KeyValueView(Context context, AttributeSet attributeSet, int defStyle) {
         super(context, attributeSet, defStyle);
 
-        LayoutInflater.from(context).inflate(R.layout.key_value_view, this);
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.INFLATE);
+        WidgetInflater.layoutInflater(context).inflate(R.layout.key_value_view, this);
 
         key = findViewById(R.id.key);
         value = findViewById(R.id.value);
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.INFLATE, start);
 
         dpi = (float)Resources.getSystem().getDisplayMetrics().densityDpi/(float)DisplayMetrics.DENSITY_DEFAULT;
 
-        processProperties(context, attributeSet);
+        start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.ATTRIBUTES);
+        beginBatch();
+        processProperties(context, attributeSet, defStyle);
+        endBatch();
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.ATTRIBUTES, start);
     }
 
-    private void processProperties(Context context, AttributeSet attributeSet) {
-        TypedArray typedArray = context.obtainStyledAttributes(attributeSet, R.styleable.KeyValueView);
+    private void processProperties(Context context, AttributeSet attributeSet, int defStyle) {
+        // Views created in code only have the default style, which is resolved once per theme
+        if (attributeSet == null) {
+            if (defStyle != 0) setStyle(KeyValueStyle.fromTheme(context, defStyle));
+            return;
+        }
+
+        TypedArray typedArray = context.obtainStyledAttributes(attributeSet, R.styleable.KeyValueView, defStyle, 0);
 
         if (typedArray != null) {
+            boolean methodAsync = typedArray.getBoolean(R.styleable.KeyValueView_methodForValueAsync, false);
+            String asyncMethodName = null;
+
             int count = typedArray.getIndexCount();
             for (int i = 0; i < count; i++) {
                 int property = typedArray.getIndex(i);
@@ -188,7 +243,11 @@ public class KeyValueView extends LinearLayout {
                     if (context.isRestricted()) throw new IllegalStateException("The app:methodForValue cannot be used in a restricted context");
 
                     String methodName = typedArray.getString(property);
-                    if (methodName != null) processMethod(methodName);
+                    if (methodName != null) {
+                        // Run once everything else is set, so that nothing set later cancels it
+                        if (methodAsync) asyncMethodName = methodName;
+                        else processMethod(methodName);
+                    }
                 }
                 if (property == R.styleable.KeyValueView_keyAppearance) {
                     setKeyTextAppearance(typedArray.getResourceId(property, android.R.attr.textAppearance));
@@ -197,36 +256,41 @@ public class KeyValueView extends LinearLayout {
                     setValueTextAppearance(typedArray.getResourceId(property, android.R.attr.textAppearanceSmall));
                 }
             }
+
+            if (asyncMethodName != null) {
+                processMethodAsync(asyncMethodName, typedArray.getString(R.styleable.KeyValueView_methodPlaceholder),
+                        typedArray.getInt(R.styleable.KeyValueView_methodTimeout, 0),
+                        typedArray.getInt(R.styleable.KeyValueView_methodCacheTtl, 0));
+            }
             typedArray.recycle();
         }
     }
 
     private void processMethod(@NonNull String methodName) {
-        // This method expects the method in form of domainname.orgname.projectname.className.subClassName.methodName
-        // Either way, the last part must be the method, the rest must be class
-
-        String className;
-        Context context = getContext();
-        String methodExtracted = methodName.substring(methodName.lastIndexOf(".") + 1);
-        if (methodName.contains("."))
-            className = methodName.substring(0, methodName.lastIndexOf("."));
-        else {
-            //throw new IllegalArgumentException("The method name supplied must be absolute");
-            className = context.getClass().getName();
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.METHOD_FOR_VALUE);
+        String value = MethodForValueCache.invoke(getContext(), methodName);
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.METHOD_FOR_VALUE, start);
+        if (value != null) {
+            setValueText(value);
+            methodSetValue = true;
         }
+    }
 
-        try {
-            Class clazz = Class.forName(className);
-            Method method = clazz.getDeclaredMethod(methodExtracted);
-            String value = (String) method.invoke(context);
-            if (value != null) {
-                setValueText(value);
-                methodSetValue = true;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /**
+     * Executes the method in background, showing the placeholder meanwhile
+     */
+    private void processMethodAsync(@NonNull String methodName, @Nullable String placeholder, long timeoutMillis, long ttlMillis) {
+        if (placeholder != null) setValueText(placeholder);
 
+        // Not timed, the view does not wait for the method, see WidgetMetrics.METHOD_FOR_VALUE
+        methodRequest = MethodForValueCache.invokeAsync(getContext(), methodName, timeoutMillis, ttlMillis,
+                new MethodForValueCache.ValueCallback() {
+                    @Override
+                    public void onValue(@Nullable String value) {
+                        methodRequest = null;
+                        if (value != null) applyValueText(value);
+                    }
+                });
     }
 
     /**
@@ -234,6 +298,8 @@ public class KeyValueView extends LinearLayout {
      * @param text Text to set
      */
     public void setKeyText(@NonNull String text) {
+        // Same text keeps the measured layout, rebinding a row does not lay it out again
+        if (TextUtils.equals(key.getText(), text)) return;
         key.setText(text);
     }
 
@@ -250,6 +316,24 @@ public class KeyValueView extends LinearLayout {
      * @param text Text to set
      */
     public void setValueText(@NonNull String text) {
+        dropPendingValues();
+        applyValueText(text);
+    }
+
+    /**
+     * Drops the values which would otherwise be set later, as the one being set now wins
+     */
+    private void dropPendingValues() {
+        postedValue.set(null);
+        if (methodRequest != null) {
+            methodRequest.cancel();
+            methodRequest = null;
+        }
+    }
+
+    private void applyValueText(@NonNull CharSequence text) {
+        TextPrecomputer.cancel(value);
+        if (TextUtils.equals(value.getText(), text)) return;
         value.setText(text);
     }
 
@@ -258,9 +342,113 @@ public class KeyValueView extends LinearLayout {
      * @param resId String resource id
      */
     public void setValueText(@StringRes int resId) {
+        dropPendingValues();
+        TextPrecomputer.cancel(value);
         value.setText(resId);
     }
 
+    /**
+     * Sets text into the <strong>Value</strong> field (or TextView in this case) after
+     * warming the platform text caches with it on a background thread
+     * Use this for long values, the TextView still lays them out on the main thread, but mostly from those caches
+     * Only the latest text set is shown, whether it was set with this or with setValueText()
+     * @param text Text to set, must not be modified afterwards
+     */
+    public void setValueTextAsync(@NonNull CharSequence text) {
+        dropPendingValues();
+        TextPrecomputer.setTextAsync(value, text);
+    }
+
+    /**
+     * Sets a whole number as value, formatted for the default locale
+     * Formatting reuses the same buffers, so updating the value often does not allocate
+     * @param number Number
+     */
+    public void setValue(long number) {
+        setValue(number, null);
+    }
+
+    /**
+     * Sets a whole number followed by a unit as value, like 42 km
+     * @param number Number
+     * @param unit Unit, appended as it is, so include the space if one is needed
+     */
+    public void setValue(long number, @Nullable CharSequence unit) {
+        applyValueChars(numberChars().format(number).append(unit));
+    }
+
+    /**
+     * Sets a number rounded to the given decimals as value, formatted for the default locale
+     * Formatting reuses the same buffers, so updating the value often does not allocate
+     * @param number Number
+     * @param decimals Digits after the decimal separator, at most 15
+     */
+    public void setValue(double number, int decimals) {
+        setValue(number, decimals, null);
+    }
+
+    /**
+     * Sets a number rounded to the given decimals followed by a unit as value, like 3.5 GB
+     * @param number Number
+     * @param decimals Digits after the decimal separator, at most 15
+     * @param unit Unit, appended as it is, so include the space if one is needed
+     */
+    public void setValue(double number, int decimals, @Nullable CharSequence unit) {
+        applyValueChars(numberChars().format(number, decimals).append(unit));
+    }
+
+    /**
+     * Sets a fraction as a percentage value, 0.25 being shown as 25%
+     * @param fraction Fraction
+     * @param decimals Digits after the decimal separator, at most 15
+     */
+    public void setPercent(double fraction, int decimals) {
+        applyValueChars(numberChars().format(fraction * 100, decimals).appendPercent());
+    }
+
+    /**
+     * Sets whether numbers set as value have their digits grouped, like 1,234,567
+     * It applies to the numbers set afterwards, grouping is on by default
+     * @param grouping True to group
+     */
+    public void setValueGrouping(boolean grouping) {
+        numberChars().setGrouping(grouping);
+    }
+
+    private NumberChars numberChars() {
+        if (valueChars == null) valueChars = new NumberChars();
+        return valueChars;
+    }
+
+    private void applyValueChars(NumberChars chars) {
+        dropPendingValues();
+        TextPrecomputer.cancel(value);
+        if (chars.contentEquals(value.getText())) return;
+
+        // The text view keeps the array, the next number goes into the other one
+        int length = chars.length();
+        value.setText(chars.publish(), 0, length);
+    }
+
+    /**
+     * Sets text into the <strong>Value</strong> field from any thread
+     * Only the latest value posted before a frame is set, at the start of that frame, so values
+     * arriving faster than the display refreshes cost at most one layout per frame
+     * @param text Text to set, must not be modified afterwards
+     */
+    public void postValue(@NonNull CharSequence text) {
+        if (postedValue.getAndSet(text) == null) FrameUpdates.schedule(postedValueUpdate);
+    }
+
+    /**
+     * Sets the minimum time between values set by postValue(CharSequence)
+     * Values posted meanwhile replace each other, the latest one is set once the time has passed
+     * @param millis Minimum interval in milliseconds, 0 to set a value every frame
+     */
+    public void setMinValueUpdateInterval(long millis) {
+        minValueIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+    }
+
     /**
      * Enables or disables each view as needed
      * @param keyEnabled Whether or not to enable Key
@@ -423,7 +611,10 @@ public class KeyValueView extends LinearLayout {
      * @param bottom Bottom drawable
      */
     public void setKeyDrawables(@DrawableRes int left, @DrawableRes int top, @DrawableRes int right, @DrawableRes int bottom) {
-        key.setCompoundDrawablesWithIntrinsicBounds(left, top, right, bottom);
+        Context context = getContext();
+        key.setCompoundDrawablesWithIntrinsicBounds(DrawableCache.get(context, left), DrawableCache.get(context, top),
+                DrawableCache.get(context, right), DrawableCache.get(context, bottom));
+        setDrawables(keyDrawables, left, top, right, bottom);
     }
 
     /**
@@ -434,7 +625,10 @@ public class KeyValueView extends LinearLayout {
      * @param bottom Bottom drawable
      */
     public void setValueDrawables(@DrawableRes int left, @DrawableRes int top, @DrawableRes int right, @DrawableRes int bottom) {
-        value.setCompoundDrawablesWithIntrinsicBounds(left, top, right, bottom);
+        Context context = getContext();
+        value.setCompoundDrawablesWithIntrinsicBounds(DrawableCache.get(context, left), DrawableCache.get(context, top),
+                DrawableCache.get(context, right), DrawableCache.get(context, bottom));
+        setDrawables(valueDrawables, left, top, right, bottom);
     }
 
     /**
@@ -446,7 +640,11 @@ public class KeyValueView extends LinearLayout {
      */
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
     public void setKeyRelativeDrawables(@DrawableRes int start, @DrawableRes int top, @DrawableRes int end, @DrawableRes int bottom) {
-        key.setCompoundDrawablesRelativeWithIntrinsicBounds(start, top, end, bottom);
+        Context context = getContext();
+        key.setCompoundDrawablesRelativeWithIntrinsicBounds(DrawableCache.get(context, start), DrawableCache.get(context, top),
+                DrawableCache.get(context, end), DrawableCache.get(context, bottom));
+        // Relative drawables are not tracked, so setting any absolute ones afterwards always goes through
+        Arrays.fill(keyDrawables, UNKNOWN_DRAWABLE);
     }
 
     /**
@@ -458,7 +656,10 @@ public class KeyValueView extends LinearLayout {
      */
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
     public void setValueRelativeDrawables(@DrawableRes int start, @DrawableRes int top, @DrawableRes int end, @DrawableRes int bottom) {
-        value.setCompoundDrawablesRelativeWithIntrinsicBounds(start, top, end, bottom);
+        Context context = getContext();
+        value.setCompoundDrawablesRelativeWithIntrinsicBounds(DrawableCache.get(context, start), DrawableCache.get(context, top),
+                DrawableCache.get(context, end), DrawableCache.get(context, bottom));
+        Arrays.fill(valueDrawables, UNKNOWN_DRAWABLE);
     }
 
     /**
@@ -477,6 +678,368 @@ public class KeyValueView extends LinearLayout {
         value.setTextAppearance(getContext(), appearance);
     }
 
+    private static void setDrawables(int[] drawables, int left, int top, int right, int bottom) {
+        drawables[0] = left;
+        drawables[1] = top;
+        drawables[2] = right;
+        drawables[3] = bottom;
+    }
+
+    /**
+     * Starts a batch of changes, layout requests are held back until it ends
+     * Batches can be nested, the layout is requested when the outermost one ends
+     */
+    private void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes, requesting layout once if anything in it did
+     */
+    private void endBatch() {
+        if (--batchDepth == 0 && layoutRequestedInBatch) {
+            layoutRequestedInBatch = false;
+            LayoutStats.onLayoutRequested(WidgetMetrics.KEY_VALUE_VIEW, this);
+            super.requestLayout();
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        // The children mark themselves before asking us, so it is enough to ask our parent once
+        if (batchDepth > 0) {
+            layoutRequestedInBatch = true;
+            return;
+        }
+
+        LayoutStats.onLayoutRequested(WidgetMetrics.KEY_VALUE_VIEW, this);
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        LayoutStats.onMeasured(WidgetMetrics.KEY_VALUE_VIEW, this);
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.MEASURE);
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.MEASURE, start);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.LAYOUT);
+        super.onLayout(changed, left, top, right, bottom);
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.LAYOUT, start);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        long start = WidgetMetrics.begin(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.DRAW);
+        super.dispatchDraw(canvas);
+        WidgetMetrics.end(WidgetMetrics.KEY_VALUE_VIEW, WidgetMetrics.DRAW, start);
+    }
+
+    /**
+     * Applies a style to this view, with at most one layout pass
+     * Share the same style among the views having the same look, instead of setting the properties on each
+     * @param style Style
+     */
+    public void setStyle(@NonNull KeyValueStyle style) {
+        beginBatch();
+        try {
+            style.apply(this);
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Starts editing this view
+     * Changes are recorded by the returned editor and applied together by Editor.apply(),
+     * which results in at most one layout pass, however many of them there are.
+     * Changes which would not change anything are skipped.
+     * @return Editor
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Records changes to a KeyValueView, to apply them at once
+     */
+    public class Editor {
+        private static final int KEY_TEXT = 1, VALUE_TEXT = 1 << 1;
+        private static final int KEY_SIZE = 1 << 2, VALUE_SIZE = 1 << 3;
+        private static final int KEY_TYPEFACE = 1 << 4, VALUE_TYPEFACE = 1 << 5;
+        private static final int KEY_TEXT_COLOR = 1 << 6, VALUE_TEXT_COLOR = 1 << 7;
+        private static final int KEY_BACKGROUND_COLOR = 1 << 8, VALUE_BACKGROUND_COLOR = 1 << 9;
+        private static final int PADDING = 1 << 10, SPACING = 1 << 11;
+        private static final int KEY_DRAWABLES = 1 << 12, VALUE_DRAWABLES = 1 << 13;
+        private static final int ENABLED = 1 << 14;
+
+        // Which of the fields below were set
+        private int changes = 0;
+
+        private String keyText, valueText;
+        private float keySize, valueSize;
+        private Typeface keyTypeface, valueTypeface;
+        private int keyStyle, valueStyle;
+        private int keyTextColor, valueTextColor;
+        private int keyBackgroundColor, valueBackgroundColor;
+        private int padding;
+        private int spacingBelowKey, spacingAboveValue;
+        private final int[] keyDrawableIds = new int[4], valueDrawableIds = new int[4];
+        private boolean keyEnabled, valueEnabled;
+
+        private Editor() {
+        }
+
+        /**
+         * @see KeyValueView#setKeyText(String)
+         */
+        public Editor setKeyText(@NonNull String text) {
+            keyText = text;
+            changes |= KEY_TEXT;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setValueText(String)
+         */
+        public Editor setValueText(@NonNull String text) {
+            valueText = text;
+            changes |= VALUE_TEXT;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setKeySize(float)
+         */
+        public Editor setKeySize(float size) {
+            keySize = size;
+            changes |= KEY_SIZE;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setValueSize(float)
+         */
+        public Editor setValueSize(float size) {
+            valueSize = size;
+            changes |= VALUE_SIZE;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setKeyTypeface(Typeface, int)
+         */
+        public Editor setKeyTypeface(@Nullable Typeface typeface, int style) {
+            keyTypeface = typeface;
+            keyStyle = style;
+            changes |= KEY_TYPEFACE;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setValueTypeface(Typeface, int)
+         */
+        public Editor setValueTypeface(@Nullable Typeface typeface, int style) {
+            valueTypeface = typeface;
+            valueStyle = style;
+            changes |= VALUE_TYPEFACE;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setKeyTextColor(int)
+         */
+        public Editor setKeyTextColor(int color) {
+            keyTextColor = color;
+            changes |= KEY_TEXT_COLOR;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setValueTextColor(int)
+         */
+        public Editor setValueTextColor(int color) {
+            valueTextColor = color;
+            changes |= VALUE_TEXT_COLOR;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setKeyBackgroundColor(int)
+         */
+        public Editor setKeyBackgroundColor(int color) {
+            keyBackgroundColor = color;
+            changes |= KEY_BACKGROUND_COLOR;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setValueBackgroundColor(int)
+         */
+        public Editor setValueBackgroundColor(int color) {
+            valueBackgroundColor = color;
+            changes |= VALUE_BACKGROUND_COLOR;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setPadding(int)
+         */
+        public Editor setPadding(int dp) {
+            padding = dp;
+            changes |= PADDING;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setAbsoluteSpacing(int, int)
+         */
+        public Editor setAbsoluteSpacing(int spacingBelowKey, int spacingAboveValue) {
+            this.spacingBelowKey = spacingBelowKey;
+            this.spacingAboveValue = spacingAboveValue;
+            changes |= SPACING;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setAbsoluteSpacing(int)
+         */
+        public Editor setAbsoluteSpacing(int spacing) {
+            return setAbsoluteSpacing(spacing, spacing);
+        }
+
+        /**
+         * @see KeyValueView#setKeyDrawables(int, int, int, int)
+         */
+        public Editor setKeyDrawables(@DrawableRes int left, @DrawableRes int top, @DrawableRes int right, @DrawableRes int bottom) {
+            setDrawables(keyDrawableIds, left, top, right, bottom);
+            changes |= KEY_DRAWABLES;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setValueDrawables(int, int, int, int)
+         */
+        public Editor setValueDrawables(@DrawableRes int left, @DrawableRes int top, @DrawableRes int right, @DrawableRes int bottom) {
+            setDrawables(valueDrawableIds, left, top, right, bottom);
+            changes |= VALUE_DRAWABLES;
+
+            return this;
+        }
+
+        /**
+         * @see KeyValueView#setEnabled(boolean, boolean)
+         */
+        public Editor setEnabled(boolean keyEnabled, boolean valueEnabled) {
+            this.keyEnabled = keyEnabled;
+            this.valueEnabled = valueEnabled;
+            changes |= ENABLED;
+
+            return this;
+        }
+
+        /**
+         * Applies the recorded changes, skipping the ones which would not change anything
+         */
+        public void apply() {
+            beginBatch();
+            try {
+                if (isSet(KEY_TEXT) && !TextUtils.equals(key.getText(), keyText)) {
+                    KeyValueView.this.setKeyText(keyText);
+                }
+                // Pending values are dropped even if the text is the same, setValueText() skips setting it then
+                if (isSet(VALUE_TEXT)) {
+                    KeyValueView.this.setValueText(valueText);
+                }
+                if (isSet(KEY_SIZE) && toTextSize(keySize) != key.getTextSize()) {
+                    KeyValueView.this.setKeySize(keySize);
+                }
+                if (isSet(VALUE_SIZE) && toTextSize(valueSize) != value.getTextSize()) {
+                    KeyValueView.this.setValueSize(valueSize);
+                }
+                if (isSet(KEY_TYPEFACE) && !hasTypeface(key, keyTypeface, keyStyle)) {
+                    KeyValueView.this.setKeyTypeface(keyTypeface, keyStyle);
+                }
+                if (isSet(VALUE_TYPEFACE) && !hasTypeface(value, valueTypeface, valueStyle)) {
+                    KeyValueView.this.setValueTypeface(valueTypeface, valueStyle);
+                }
+                if (isSet(KEY_TEXT_COLOR) && !hasTextColor(key, keyTextColor)) {
+                    KeyValueView.this.setKeyTextColor(keyTextColor);
+                }
+                if (isSet(VALUE_TEXT_COLOR) && !hasTextColor(value, valueTextColor)) {
+                    KeyValueView.this.setValueTextColor(valueTextColor);
+                }
+                if (isSet(KEY_BACKGROUND_COLOR) && !hasBackgroundColor(key, keyBackgroundColor)) {
+                    KeyValueView.this.setKeyBackgroundColor(keyBackgroundColor);
+                }
+                if (isSet(VALUE_BACKGROUND_COLOR) && !hasBackgroundColor(value, valueBackgroundColor)) {
+                    KeyValueView.this.setValueBackgroundColor(valueBackgroundColor);
+                }
+                if (isSet(PADDING) && !(hasPadding(key, padding) && hasPadding(value, padding))) {
+                    KeyValueView.this.setPadding(padding);
+                }
+                if (isSet(SPACING) && (key.getPaddingBottom() != spacingBelowKey || value.getPaddingTop() != spacingAboveValue)) {
+                    KeyValueView.this.setAbsoluteSpacing(spacingBelowKey, spacingAboveValue);
+                }
+                if (isSet(KEY_DRAWABLES) && !Arrays.equals(keyDrawables, keyDrawableIds)) {
+                    KeyValueView.this.setKeyDrawables(keyDrawableIds[0], keyDrawableIds[1], keyDrawableIds[2], keyDrawableIds[3]);
+                }
+                if (isSet(VALUE_DRAWABLES) && !Arrays.equals(valueDrawables, valueDrawableIds)) {
+                    KeyValueView.this.setValueDrawables(valueDrawableIds[0], valueDrawableIds[1], valueDrawableIds[2], valueDrawableIds[3]);
+                }
+                if (isSet(ENABLED) && (key.isEnabled() != keyEnabled || value.isEnabled() != valueEnabled)) {
+                    KeyValueView.this.setEnabled(keyEnabled, valueEnabled);
+                }
+            } finally {
+                changes = 0;
+                endBatch();
+            }
+        }
+
+        private boolean isSet(int change) {
+            return (changes & change) != 0;
+        }
+
+        private float toTextSize(float size) {
+            // Same conversion as setKeySize() and setValueSize()
+            return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, getResources().getDisplayMetrics());
+        }
+
+        private boolean hasTypeface(TextView textView, Typeface typeface, int style) {
+            Typeface current = textView.getTypeface();
+            return current == typeface && (current == null ? style <= 0 : current.getStyle() == style);
+        }
+
+        private boolean hasTextColor(TextView textView, int color) {
+            return !textView.getTextColors().isStateful() && textView.getCurrentTextColor() == color;
+        }
+
+        private boolean hasBackgroundColor(TextView textView, int color) {
+            return textView.getBackground() instanceof ColorDrawable && ((ColorDrawable) textView.getBackground()).getColor() == color;
+        }
+
+        private boolean hasPadding(TextView textView, int padding) {
+            return textView.getPaddingLeft() == padding && textView.getPaddingTop() == padding
+                    && textView.getPaddingRight() == padding && textView.getPaddingBottom() == padding;
+        }
+    }
+
     /**
      * Just in case user wants to use the full capabilities of a TextView or do advanced stuff
      * @return Key
@@ -0,0 +1,239 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Debug mode counting the layout requests and measure passes of the widgets
+ * Counts are kept per widget type for the whole time the mode is on, and per view for the
+ * current frame. A view going over the budget in a frame is reported once in that frame,
+ * together with the call site of the request or measure which went over it.
+ * When off, which is the default, the widgets only check a flag.
+ * Views are expected to be used on the main thread, per frame counting happens only there.
+ */
+
+public final class LayoutStats {
+    /**
+     * Receives the views going over the budget
+     */
+    public interface Listener {
+        /**
+         * Called when a view goes over the budget, at most once per view per frame
+         * @param view View
+         * @param layoutRequests Layout requests of the view in this frame so far
+         * @param measures Measure passes of the view in this frame so far
+         * @param callSite Stack trace of the call going over the budget
+         */
+        void onBudgetExceeded(@NonNull View view, int layoutRequests, int measures, @NonNull Throwable callSite);
+    }
+
+    private static final String TAG = "LayoutStats";
+
+    public static final int DEFAULT_LAYOUT_REQUEST_BUDGET = 2;
+    public static final int DEFAULT_MEASURE_BUDGET = 4;
+
+    // Counts of the current frame
+    private static class FrameCounts {
+        int layoutRequests, measures;
+        boolean reported;
+    }
+
+    private static volatile boolean enabled = false;
+    private static volatile Listener listener;
+    private static int layoutRequestBudget = DEFAULT_LAYOUT_REQUEST_BUDGET, measureBudget = DEFAULT_MEASURE_BUDGET;
+
+    // Indexed by WidgetMetrics widget
+    private static final long[] layoutRequests = new long[WidgetMetrics.WIDGET_COUNT], measures = new long[WidgetMetrics.WIDGET_COUNT];
+
+    private static final Map<View, FrameCounts> frameCounts = new WeakHashMap<>();
+    private static boolean frameCallbackPosted = false;
+
+    private static final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            synchronized (LayoutStats.class) {
+                frameCallbackPosted = false;
+                frameCounts.clear();
+            }
+        }
+    };
+
+    private LayoutStats() {
+    }
+
+    /**
+     * Enables or disables the counting, counts are cleared either way
+     * @param enable True to enable
+     */
+    public static void setEnabled(boolean enable) {
+        reset();
+        enabled = enable;
+    }
+
+    /**
+     * Whether the counting is enabled
+     * @return True if it is
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the budget of a view per frame, going over either reports the view
+     * @param layoutRequests Layout requests allowed per frame
+     * @param measurePasses Measure passes allowed per frame
+     */
+    public static void setBudget(int layoutRequests, int measurePasses) {
+        layoutRequestBudget = layoutRequests;
+        measureBudget = measurePasses;
+    }
+
+    /**
+     * Sets the listener receiving the views going over the budget
+     * @param budgetListener Listener, null to log a warning with the call site instead
+     */
+    public static void setListener(@Nullable Listener budgetListener) {
+        listener = budgetListener;
+    }
+
+    /**
+     * Number of the layout requests of a widget type since the counting was enabled or reset
+     * @param widget Widget, one of WidgetMetrics.KEY_VALUE_VIEW, FLAT_KEY_VALUE_VIEW, PLACEHOLDER_VIEW or KEY_VALUE_GROUP_VIEW
+     * @return Count
+     */
+    public static synchronized long getLayoutRequestCount(int widget) {
+        return layoutRequests[widget];
+    }
+
+    /**
+     * Number of the measure passes of a widget type since the counting was enabled or reset
+     * @param widget Widget, one of WidgetMetrics.KEY_VALUE_VIEW, FLAT_KEY_VALUE_VIEW, PLACEHOLDER_VIEW or KEY_VALUE_GROUP_VIEW
+     * @return Count
+     */
+    public static synchronized long getMeasureCount(int widget) {
+        return measures[widget];
+    }
+
+    /**
+     * Number of the layout requests of a view in the current frame
+     * @param view View
+     * @return Count
+     */
+    public static synchronized int getFrameLayoutRequestCount(@NonNull View view) {
+        FrameCounts counts = frameCounts.get(view);
+        return counts == null ? 0 : counts.layoutRequests;
+    }
+
+    /**
+     * Number of the measure passes of a view in the current frame
+     * @param view View
+     * @return Count
+     */
+    public static synchronized int getFrameMeasureCount(@NonNull View view) {
+        FrameCounts counts = frameCounts.get(view);
+        return counts == null ? 0 : counts.measures;
+    }
+
+    /**
+     * Clears all the counts
+     */
+    public static synchronized void reset() {
+        for (int i = 0; i < layoutRequests.length; i++) {
+            layoutRequests[i] = 0;
+            measures[i] = 0;
+        }
+        frameCounts.clear();
+    }
+
+    /**
+     * Counts a layout request of a view
+     * @param widget Widget type of the view
+     * @param view View
+     */
+    static void onLayoutRequested(int widget, @NonNull View view) {
+        if (!enabled) return;
+
+        FrameCounts counts;
+        synchronized (LayoutStats.class) {
+            layoutRequests[widget]++;
+            if ((counts = frameCounts(view)) == null) return;
+            counts.layoutRequests++;
+        }
+        check(view, counts);
+    }
+
+    /**
+     * Counts a measure pass of a view
+     * @param widget Widget type of the view
+     * @param view View
+     */
+    static void onMeasured(int widget, @NonNull View view) {
+        if (!enabled) return;
+
+        FrameCounts counts;
+        synchronized (LayoutStats.class) {
+            measures[widget]++;
+            if ((counts = frameCounts(view)) == null) return;
+            counts.measures++;
+        }
+        check(view, counts);
+    }
+
+    /**
+     * Counts of the view in the current frame, null when not on the main thread
+     */
+    @Nullable
+    private static FrameCounts frameCounts(@NonNull View view) {
+        if (!WidgetExecutors.isMainThread()) return null;
+
+        FrameCounts counts = frameCounts.get(view);
+        if (counts == null) {
+            counts = new FrameCounts();
+            frameCounts.put(view, counts);
+        }
+
+        // Counts are dropped when the next frame starts
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+
+        return counts;
+    }
+
+    private static void check(@NonNull View view, @NonNull FrameCounts counts) {
+        if (counts.reported || (counts.layoutRequests <= layoutRequestBudget && counts.measures <= measureBudget)) return;
+        counts.reported = true;
+
+        Throwable callSite = new Throwable(view.getClass().getSimpleName() + " went over the layout budget: "
+                + counts.layoutRequests + " layout requests, " + counts.measures + " measure passes in a frame");
+
+        Listener budgetListener = listener;
+        if (budgetListener != null) budgetListener.onBudgetExceeded(view, counts.layoutRequests, counts.measures, callSite);
+        else Log.w(TAG, callSite.getMessage(), callSite);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows a large text split in chunks, so that only the visible chunks are laid out
+ */
+
+class MessageChunkAdapter extends RecyclerView.Adapter<MessageChunkAdapter.ViewHolder> {
+    // Paragraphs longer than this are split further, at a space where possible
+    static final int CHUNK_LENGTH = 1024;
+
+    private List<String> chunks = Collections.emptyList();
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+
+        ViewHolder(TextView textView) {
+            super(textView);
+            this.textView = textView;
+        }
+    }
+
+    /**
+     * Sets the text to show
+     * @param text Text
+     */
+    void setText(@NonNull String text) {
+        chunks = split(text, CHUNK_LENGTH);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Splits the text in paragraphs, one chunk each, the line breaks themselves are dropped
+     * Paragraphs longer than the given length are split further, at the last space before the limit,
+     * or at the limit if there is none. Surrogate pairs are never split.
+     * @param text Text
+     * @param maxLength Maximum length of a chunk
+     * @return Chunks
+     */
+    @NonNull
+    static List<String> split(@NonNull String text, int maxLength) {
+        List<String> chunks = new ArrayList<>();
+        int length = text.length();
+        int start = 0;
+
+        while (start <= length) {
+            int lineBreak = text.indexOf('\n', start);
+            int paragraphEnd = lineBreak >= 0 ? lineBreak : length;
+
+            splitParagraph(text, start, paragraphEnd, maxLength, chunks);
+            start = paragraphEnd + 1;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Adds the paragraph in [start, end) as a chunk, split further if it is longer than the given length
+     */
+    private static void splitParagraph(String text, int start, int end, int maxLength, List<String> chunks) {
+        while (end - start > maxLength) {
+            int cut = start + maxLength;
+
+            int space = text.lastIndexOf(' ', cut - 1);
+            if (space > start) {
+                cut = space + 1;
+            } else if (Character.isHighSurrogate(text.charAt(cut - 1)) && cut - 1 > start) {
+                cut--;
+            }
+
+            chunks.add(text.substring(start, cut));
+            start = cut;
+        }
+
+        chunks.add(text.substring(start, end));
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        TextView textView = (TextView) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.bottom_sheet_alert_dialog_message_chunk, parent, false);
+
+        return new ViewHolder(textView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.textView.setText(chunks.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return chunks.size();
+    }
+}
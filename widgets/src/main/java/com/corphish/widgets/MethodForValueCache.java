@@ -0,0 +1,493 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.corphish.widgets.annotations.KeyValueSourceRegistry;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of the methods used by app:methodForValue
+ * Resolving a method by its name is done once per name, every view using the same name afterwards
+ * reuses the resolved method. Names which fail to resolve are remembered as well.
+ * If the registry generated for the methods marked with KeyValueSource is installed, methods are
+ * looked up in it first and called directly, reflection is used only for the rest.
+ * Methods can also be executed asynchronously, optionally reusing the value returned for a while.
+ * It is safe to use from any thread.
+ */
+
+public final class MethodForValueCache {
+    /**
+     * A resolved method, which can be executed to get the value
+     */
+    public interface Invoker {
+        /**
+         * Executes the method
+         * @param context Context of the view, used as receiver of the method
+         * @return Value returned by the method
+         * @throws Exception Whatever the method throws
+         */
+        @Nullable
+        String invoke(@NonNull Context context) throws Exception;
+    }
+
+    /**
+     * Receives the value of a method executed asynchronously
+     */
+    public interface ValueCallback {
+        /**
+         * Called on the main thread once the method returns, fails or times out
+         * @param value Value returned by the method, null if it failed, timed out or returned null
+         */
+        void onValue(@Nullable String value);
+    }
+
+    /**
+     * A pending asynchronous execution, which can be cancelled
+     */
+    public static final class Request {
+        // Dropped once finished, so that a pending execution does not keep the view alive
+        private ValueCallback callback;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private Runnable timeout;
+
+        private Request(ValueCallback callback) {
+            this.callback = callback;
+        }
+
+        /**
+         * Cancels the request, its callback is not called anymore
+         * The method itself is not interrupted, its value may still be cached for other views
+         */
+        public void cancel() {
+            if (!finished.compareAndSet(false, true)) return;
+
+            if (timeout != null) WidgetExecutors.main().removeCallbacks(timeout);
+            callback = null;
+        }
+
+        /**
+         * Whether the callback was called or the request was cancelled
+         * @return True if it was
+         */
+        public boolean isFinished() {
+            return finished.get();
+        }
+
+        // Main thread only
+        private void finish(@Nullable String value) {
+            if (!finished.compareAndSet(false, true)) return;
+
+            if (timeout != null) WidgetExecutors.main().removeCallbacks(timeout);
+            ValueCallback finishedCallback = callback;
+            callback = null;
+            finishedCallback.onValue(value);
+        }
+    }
+
+    /**
+     * Identifies an execution which requests can join
+     * Executions of a method needing the context of the view are not shared across contexts,
+     * unless its value is reused anyway.
+     */
+    private static final class ExecutionKey {
+        final String name;
+        final Context context;
+
+        ExecutionKey(String name, @Nullable Context context) {
+            this.name = name;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ExecutionKey)) return false;
+
+            ExecutionKey other = (ExecutionKey) o;
+            return name.equals(other.name) && context == other.context;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + System.identityHashCode(context);
+        }
+    }
+
+    /**
+     * Execution of a method in background, shared by all requests for it made meanwhile
+     */
+    private static final class Execution implements Runnable {
+        private final ExecutionKey key;
+        private final Invoker invoker;
+        private final Context context;
+        private final long ttlMillis;
+        private final List<Request> requests = new ArrayList<>();
+        private boolean done = false;
+
+        Execution(ExecutionKey key, Invoker invoker, Context context, long ttlMillis) {
+            this.key = key;
+            this.invoker = invoker;
+            this.context = context;
+            this.ttlMillis = ttlMillis;
+        }
+
+        /**
+         * Adds a request to be notified
+         * @return False if the execution is done already
+         */
+        synchronized boolean add(Request request) {
+            if (done) return false;
+
+            requests.add(request);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            String result = null;
+            try {
+                result = invoker.invoke(context);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            final String value = result;
+            if (value != null && ttlMillis > 0) {
+                values.put(key.name, new CachedValue(value, SystemClock.elapsedRealtime() + ttlMillis));
+            }
+
+            final List<Request> finished;
+            synchronized (this) {
+                done = true;
+                finished = new ArrayList<>(requests);
+            }
+            executions.remove(key, this);
+
+            WidgetExecutors.main().post(new Runnable() {
+                @Override
+                public void run() {
+                    for (Request request : finished) request.finish(value);
+                }
+            });
+        }
+    }
+
+    /**
+     * Invoker of a static method, which does not need the context of the view
+     */
+    private abstract static class StaticInvoker implements Invoker {
+    }
+
+    /**
+     * Value returned by a method, reused until it expires
+     */
+    private static final class CachedValue {
+        final String value;
+        final long expiresAt;
+
+        CachedValue(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Marks names which could not be resolved
+    private static final Invoker UNRESOLVED = new Invoker() {
+        @Override
+        public String invoke(@NonNull Context context) {
+            return null;
+        }
+    };
+
+    private static final ConcurrentHashMap<String, Invoker> invokers = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    // Values of the methods executed asynchronously, and the executions in progress, by absolute name
+    private static final ConcurrentHashMap<String, CachedValue> values = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<ExecutionKey, Execution> executions = new ConcurrentHashMap<>();
+
+    // Generated registry of the methods marked with KeyValueSource
+    private static volatile KeyValueSourceRegistry registry;
+
+    private MethodForValueCache() {
+    }
+
+    /**
+     * Returns the absolute name of the method, as it is used as the key of the cache
+     * The method is expected in form of domainname.orgname.projectname.className.subClassName.methodName
+     * If only the method name is given, the class of the context is assumed
+     * @param context Context, needed when only the method name is given, can be null otherwise
+     * @param methodName Method name
+     * @return Absolute method name
+     */
+    @NonNull
+    static String qualify(@Nullable Context context, @NonNull String methodName) {
+        if (methodName.contains(".")) return methodName;
+        if (context == null) throw new IllegalArgumentException("The method name supplied must be absolute");
+
+        return context.getClass().getName() + "." + methodName;
+    }
+
+    /**
+     * Resolves the method, looking it up only if it is not cached yet
+     * @param context Context of the view
+     * @param methodName Method name, as given in app:methodForValue
+     * @return Resolved method, null if it could not be resolved
+     */
+    @Nullable
+    public static Invoker resolve(@Nullable Context context, @NonNull String methodName) {
+        String name = qualify(context, methodName);
+        Invoker invoker = invokers.get(name);
+
+        if (invoker != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            invoker = lookup(name);
+
+            // Some other thread could have resolved it meanwhile, keep whatever got in first
+            Invoker existing = invokers.putIfAbsent(name, invoker);
+            if (existing != null) invoker = existing;
+        }
+
+        return invoker == UNRESOLVED ? null : invoker;
+    }
+
+    /**
+     * Resolves the method and executes it
+     * @param context Context of the view, used as receiver and for unqualified method names
+     * @param methodName Method name
+     * @return Value returned by the method, null if it could not be resolved or executed
+     */
+    @Nullable
+    public static String invoke(@NonNull Context context, @NonNull String methodName) {
+        Invoker invoker = resolve(context, methodName);
+        if (invoker == null) return null;
+
+        try {
+            return invoker.invoke(context);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolves and executes the method on a background thread
+     * Requests made for the same method while it is executing share that execution, as long as the method
+     * is static or they have the same context. With ttlMillis above 0 the execution and its value are
+     * shared by all requests for the same method, whatever their context is, so use it only for methods
+     * returning the same value for all of them.
+     * Only the application context is kept for static methods, the method is resolved on the calling thread.
+     * Must be called from the main thread. The callback is called on the main thread, right away if
+     * the value is reused or the method could not be resolved.
+     * @param context Context of the view, used as receiver of the method, which runs off the main thread
+     * @param methodName Method name
+     * @param timeoutMillis Time to wait before giving up and calling back with null, 0 to wait as long as it takes
+     * @param ttlMillis Time to reuse the value returned for, 0 to not reuse it
+     * @param callback Callback receiving the value
+     * @return Request, which can be cancelled
+     */
+    @NonNull
+    public static Request invokeAsync(@NonNull Context context, @NonNull String methodName,
+                                      long timeoutMillis, long ttlMillis, @NonNull ValueCallback callback) {
+        final Request request = new Request(callback);
+        String name = qualify(context, methodName);
+
+        Invoker invoker = resolve(context, methodName);
+        if (invoker == null) {
+            request.finish(null);
+            return request;
+        }
+
+        if (ttlMillis > 0) {
+            CachedValue cached = values.get(name);
+            if (cached != null && cached.expiresAt > SystemClock.elapsedRealtime()) {
+                request.finish(cached.value);
+                return request;
+            }
+        }
+
+        if (timeoutMillis > 0) {
+            request.timeout = new Runnable() {
+                @Override
+                public void run() {
+                    request.finish(null);
+                }
+            };
+            WidgetExecutors.main().postDelayed(request.timeout, timeoutMillis);
+        }
+
+        boolean isStatic = invoker instanceof StaticInvoker;
+        Context receiver = isStatic ? context.getApplicationContext() : context;
+        ExecutionKey key = new ExecutionKey(name, isStatic || ttlMillis > 0 ? null : context);
+
+        while (true) {
+            Execution execution = executions.get(key);
+            if (execution == null) {
+                execution = new Execution(key, invoker, receiver, ttlMillis);
+                execution.add(request);
+                if (executions.putIfAbsent(key, execution) == null) {
+                    WidgetExecutors.background().execute(execution);
+                    break;
+                }
+            } else if (execution.add(request)) {
+                break;
+            } else {
+                // Finished meanwhile, it is about to remove itself
+                executions.remove(key, execution);
+            }
+        }
+
+        return request;
+    }
+
+    /**
+     * Resolves the methods ahead of time, for example during application startup,
+     * so that inflating the views later does not have to
+     * @param context Context, needed for the names which are not absolute, can be null otherwise
+     * @param methodNames Method names
+     * @return Number of the methods which were resolved successfully
+     */
+    public static int preResolve(@Nullable Context context, @NonNull String... methodNames) {
+        int resolved = 0;
+        for (String methodName : methodNames) {
+            if (resolve(context, methodName) != null) resolved++;
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Installs the registry generated by the widgets-compiler annotation processor
+     * Install it before inflating any view using app:methodForValue, for example in Application.onCreate()
+     * @param sourceRegistry Generated registry, null to go back to reflection only
+     */
+    public static void setRegistry(@Nullable KeyValueSourceRegistry sourceRegistry) {
+        registry = sourceRegistry;
+
+        // Whatever was resolved before may resolve differently now
+        invokers.clear();
+    }
+
+    /**
+     * Number of times a method was found in the cache
+     * @return Hit count
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of times a method had to be looked up
+     * @return Miss count
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Number of the names cached, including the ones which failed to resolve
+     * @return Size of the cache
+     */
+    public static int size() {
+        return invokers.size();
+    }
+
+    /**
+     * Clears the cache and resets the counters
+     * Executions still running are not interrupted, but requests made afterwards do not join them
+     */
+    public static void clear() {
+        invokers.clear();
+        values.clear();
+        executions.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Looks up the method in the registry, or by reflection if it is not there
+     * @param name Absolute method name
+     * @return Invoker for the method, UNRESOLVED if there is no such method
+     */
+    @NonNull
+    private static Invoker lookup(@NonNull String name) {
+        KeyValueSourceRegistry sourceRegistry = registry;
+        final KeyValueSourceRegistry.Source source = sourceRegistry != null ? sourceRegistry.find(name) : null;
+        if (source != null) {
+            if (source.isStatic()) {
+                return new StaticInvoker() {
+                    @Override
+                    public String invoke(@NonNull Context context) {
+                        return source.get(context);
+                    }
+                };
+            }
+
+            return new Invoker() {
+                @Override
+                public String invoke(@NonNull Context context) {
+                    return source.get(context);
+                }
+            };
+        }
+
+        // The last part must be the method, the rest must be class
+        String className = name.substring(0, name.lastIndexOf("."));
+        String methodName = name.substring(name.lastIndexOf(".") + 1);
+
+        try {
+            Class clazz = Class.forName(className);
+            final Method method = clazz.getDeclaredMethod(methodName);
+
+            if (Modifier.isStatic(method.getModifiers())) {
+                return new StaticInvoker() {
+                    @Override
+                    public String invoke(@NonNull Context context) throws Exception {
+                        return (String) method.invoke(null);
+                    }
+                };
+            }
+
+            return new Invoker() {
+                @Override
+                public String invoke(@NonNull Context context) throws Exception {
+                    return (String) method.invoke(context);
+                }
+            };
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return UNRESOLVED;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats numbers into reused char buffers, without allocating once the buffers are big enough
+ * Two buffers are used in turns, one is shown by a TextView while the next number is formatted
+ * into the other, as TextView.setText(char[], int, int) keeps the array it is given.
+ * Digits, separators and grouping sizes come from the default locale, cached per locale.
+ * Numbers are rounded half up, from their exact binary value, so 1.005 is 1.00 as it is stored as 1.00499...
+ * Not thread safe, it is meant to be used on the main thread by a single view.
+ */
+
+final class NumberChars {
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L
+    };
+
+    static final int MAX_DECIMALS = POWERS_OF_TEN.length - 1;
+
+    // Scaled values below 2^52 are rounded exactly without BigDecimal, as their fraction part is still kept
+    private static final double MAX_SCALED = 4503599627370496.0;
+
+    // Splits a double in two halves of 26 bits, so that their products are exact
+    private static final double SPLITTER = 134217729.0;
+
+    private static final ConcurrentHashMap<Locale, Symbols> symbolsCache = new ConcurrentHashMap<>();
+
+    /**
+     * Formatting symbols of a locale, as read from DecimalFormatSymbols and the number pattern
+     */
+    private static final class Symbols {
+        final char zeroDigit, decimalSeparator, groupingSeparator, minusSign, percent;
+        final String nan, infinity;
+
+        // Digits in the first group, next to the decimal separator, and in the others, 0 if not grouped
+        final int primaryGrouping, secondaryGrouping;
+
+        Symbols(Locale locale, @Nullable String pattern) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            zeroDigit = symbols.getZeroDigit();
+            decimalSeparator = symbols.getDecimalSeparator();
+            groupingSeparator = symbols.getGroupingSeparator();
+            minusSign = symbols.getMinusSign();
+            percent = symbols.getPercent();
+            nan = symbols.getNaN();
+            infinity = symbols.getInfinity();
+
+            // Like #,##,##0.### for 12,34,567, the last group sets the primary size, the one before it the secondary
+            int primary = 0, secondary = 0;
+            if (pattern != null) {
+                int end = pattern.length();
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = pattern.charAt(i);
+                    if (c == '.' || c == ';' || c == 'E') {
+                        end = i;
+                        break;
+                    }
+                }
+
+                int last = pattern.lastIndexOf(',', end - 1);
+                if (last >= 0) {
+                    primary = countDigits(pattern, last + 1, end);
+                    int previous = pattern.lastIndexOf(',', last - 1);
+                    secondary = previous >= 0 ? countDigits(pattern, previous + 1, last) : primary;
+                }
+            }
+            primaryGrouping = primary;
+            secondaryGrouping = secondary > 0 ? secondary : primary;
+        }
+
+        static Symbols of(Locale locale) {
+            NumberFormat format = NumberFormat.getNumberInstance(locale);
+            String pattern = format instanceof DecimalFormat && format.isGroupingUsed()
+                    ? ((DecimalFormat) format).toPattern() : null;
+
+            return new Symbols(locale, pattern);
+        }
+
+        private static int countDigits(String pattern, int start, int end) {
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                char c = pattern.charAt(i);
+                if (c == '#' || c == '0') count++;
+            }
+
+            return count;
+        }
+
+        /**
+         * Whether a separator goes before the digit at the given position, counted from the right starting at 0
+         */
+        boolean isGroupStart(int position) {
+            if (primaryGrouping <= 0 || position < primaryGrouping) return false;
+
+            return position == primaryGrouping || (position - primaryGrouping) % secondaryGrouping == 0;
+        }
+
+        /**
+         * Number of separators in a number with the given digits
+         */
+        int separators(int digits) {
+            if (primaryGrouping <= 0 || digits <= primaryGrouping) return 0;
+
+            return 1 + (digits - primaryGrouping - 1) / secondaryGrouping;
+        }
+    }
+
+    private char[] chars = new char[24], shown = new char[24];
+    private int length = 0;
+    private Symbols symbols;
+    private boolean grouping = true;
+
+    // Symbols used instead of the ones of the default locale
+    private Symbols fixedSymbols;
+
+    /**
+     * Sets whether the integer part is grouped, like 1,234,567
+     * @param grouping True to group
+     */
+    void setGrouping(boolean grouping) {
+        this.grouping = grouping;
+    }
+
+    /**
+     * Uses the given locale and number pattern instead of the default locale
+     * The desktop JDK reports #,##0.### for every locale, while Android reports #,##,##0.### for en_IN and the like
+     * @param locale Locale of the symbols
+     * @param pattern Number pattern, for the grouping sizes
+     */
+    @VisibleForTesting
+    void setSymbols(@NonNull Locale locale, @Nullable String pattern) {
+        fixedSymbols = new Symbols(locale, pattern);
+    }
+
+    /**
+     * Formats a whole number, replacing whatever was formatted before
+     * @param value Number
+     * @return This
+     */
+    NumberChars format(long value) {
+        start();
+
+        if (value < 0) append(symbols.minusSign);
+        else value = -value;
+        appendDigits(value, 1, grouping);
+
+        return this;
+    }
+
+    /**
+     * Formats a number rounded to the given decimals, replacing whatever was formatted before
+     * @param value Number
+     * @param decimals Digits after the decimal separator, from 0 to MAX_DECIMALS
+     * @return This
+     */
+    NumberChars format(double value, int decimals) {
+        start();
+        decimals = Math.min(Math.max(decimals, 0), MAX_DECIMALS);
+
+        if (Double.isNaN(value)) return append(symbols.nan);
+        if (value < 0) append(symbols.minusSign);
+        if (Double.isInfinite(value)) return append(symbols.infinity);
+
+        long scale = POWERS_OF_TEN[decimals];
+        double absolute = Math.abs(value);
+        double scaled = absolute * scale;
+
+        // Too big to round exactly in doubles, this is the only case which allocates
+        if (scaled >= MAX_SCALED) {
+            String digits = new BigDecimal(absolute).setScale(decimals, RoundingMode.HALF_UP).unscaledValue().toString();
+            appendDigits(digits, 0, digits.length() - decimals, grouping);
+            if (decimals > 0) {
+                append(symbols.decimalSeparator);
+                appendDigits(digits, digits.length() - decimals, digits.length(), false);
+            }
+            return this;
+        }
+
+        // The product is rounded, the error tells which side of a half the exact value is on
+        long rounded = (long) Math.floor(scaled);
+        if ((scaled - rounded - 0.5) + productError(absolute, scale, scaled) >= 0) rounded++;
+
+        // Rounded down to zero, there is nothing negative left to show
+        if (rounded == 0 && length > 0) length = 0;
+
+        appendDigits(-(rounded / scale), 1, grouping);
+        if (decimals > 0) {
+            append(symbols.decimalSeparator);
+            appendDigits(-(rounded % scale), decimals, false);
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends the percent sign of the locale
+     * @return This
+     */
+    NumberChars appendPercent() {
+        return append(symbols.percent);
+    }
+
+    /**
+     * Appends text, like a unit
+     * @param text Text, nothing is appended if null
+     * @return This
+     */
+    NumberChars append(@Nullable CharSequence text) {
+        if (text == null) return this;
+
+        int count = text.length();
+        ensureCapacity(length + count);
+        for (int i = 0; i < count; i++) chars[length++] = text.charAt(i);
+
+        return this;
+    }
+
+    /**
+     * Whether the text formatted last has the same characters as the given text
+     * @param text Text
+     * @return True if they are the same
+     */
+    boolean contentEquals(@Nullable CharSequence text) {
+        if (text == null || text.length() != length) return false;
+
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != text.charAt(i)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Hands the formatted characters out to be shown, swapping the buffers
+     * The returned array must not be modified, it stays untouched until the next call
+     * @return Characters, valid from 0 to length()
+     */
+    @NonNull
+    char[] publish() {
+        char[] published = chars;
+        chars = shown;
+        shown = published;
+
+        return published;
+    }
+
+    /**
+     * Number of the characters formatted last
+     * @return Length
+     */
+    int length() {
+        return length;
+    }
+
+    private void start() {
+        length = 0;
+
+        if (fixedSymbols != null) {
+            symbols = fixedSymbols;
+            return;
+        }
+
+        Locale locale = Locale.getDefault();
+        Symbols cached = symbolsCache.get(locale);
+        if (cached == null) {
+            cached = Symbols.of(locale);
+            symbolsCache.put(locale, cached);
+        }
+        symbols = cached;
+    }
+
+    /**
+     * Error of a rounded product, so that a * b is exactly product + error
+     * Splits the factors in halves whose products are exact, see Dekker's TwoProduct
+     */
+    private static double productError(double a, double b, double product) {
+        double aHigh = highHalf(a), aLow = a - aHigh;
+        double bHigh = highHalf(b), bLow = b - bHigh;
+
+        return ((aHigh * bHigh - product) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+    }
+
+    private static double highHalf(double value) {
+        double split = SPLITTER * value;
+        return split - (split - value);
+    }
+
+    private NumberChars append(char c) {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+
+        return this;
+    }
+
+    /**
+     * Appends the digits of a number
+     * Numbers are passed negated, so that Long.MIN_VALUE works too
+     * @param negative Negated number
+     * @param minDigits Minimum digits, padded with zeros
+     * @param group Whether to group the digits
+     */
+    private void appendDigits(long negative, int minDigits, boolean group) {
+        int digits = 1;
+        for (long remaining = negative / 10; remaining != 0; remaining /= 10) digits++;
+        digits = Math.max(digits, minDigits);
+
+        int separators = group ? symbols.separators(digits) : 0;
+        int end = length + digits + separators;
+        ensureCapacity(end);
+
+        int position = end - 1;
+        for (int i = 0; i < digits; i++) {
+            if (group && symbols.isGroupStart(i)) chars[position--] = symbols.groupingSeparator;
+            chars[position--] = (char) (symbols.zeroDigit - (int) (negative % 10));
+            negative /= 10;
+        }
+
+        length = end;
+    }
+
+    /**
+     * Appends ASCII digits of a text in the digits of the locale
+     * @param digits Text of ASCII digits
+     * @param start Start of the digits to append
+     * @param end End of the digits to append
+     * @param group Whether to group the digits
+     */
+    private void appendDigits(String digits, int start, int end, boolean group) {
+        int count = end - start;
+        ensureCapacity(length + count + (group ? symbols.separators(count) : 0));
+
+        for (int i = start; i < end; i++) {
+            chars[length++] = (char) (symbols.zeroDigit + (digits.charAt(i) - '0'));
+            if (group && symbols.isGroupStart(end - i - 1)) chars[length++] = symbols.groupingSeparator;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= chars.length) return;
+
+        char[] grown = new char[Math.max(capacity, chars.length * 2)];
+        System.arraycopy(chars, 0, grown, 0, length);
+        chars = grown;
+    }
+}
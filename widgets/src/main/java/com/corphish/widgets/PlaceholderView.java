@@ -19,34 +19,213 @@ package com.corphish.widgets;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Typeface;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
+import android.support.annotation.ArrayRes;
 import android.support.annotation.ColorInt;
 import android.support.annotation.Dimension;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.widget.ImageViewCompat;
 import android.support.v7.widget.AppCompatImageView;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
-import android.view.LayoutInflater;
-import android.widget.RelativeLayout;
+import android.view.View;
+import android.view.ViewGroup;
 import android.widget.TextView;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Placeholder view to show in case there is nothing to show in certain situations
  * For example, use this to show empty search results or failure screen
+ * The image, title and description are its direct children, stacked and centered in a single measure pass
  */
 
-public class PlaceholderView extends RelativeLayout {
+public class PlaceholderView extends ViewGroup {
     private TextView descTV, titleTV;
     private AppCompatImageView imageView;
 
     // To handle sizes
     private float dpi;
 
+    // Generation of the latest image set, so that images decoded late are dropped
+    private int imageGeneration = 0;
+
+    // Properties read from the layout, until the children are inflated
+    private Properties pendingProperties;
+
+    /**
+     * Properties read from the layout, null if not set
+     */
+    private static class Properties {
+        String title, description;
+        Float titleSize, descriptionSize;
+        Integer viewTint;
+        Integer imageResourceId, imageHeight, imageWidth;
+        Integer titleStyle, descriptionStyle;
+        boolean asyncImage;
+        int imageLoadingColor;
+        List<State> states;
+        String initialState;
+    }
+
+    // States which can be switched to, by name
+    private final Map<String, State> states = new HashMap<>();
+    private String currentState;
+
+    // Image and tint set last, images set by resource id come tinted from DrawableCache
+    @DrawableRes private int imageResourceId = 0;
+    private Integer viewTint;
+
+    /**
+     * A state of the view, like loading, empty or error
+     * It holds what is shown in that state. Properties which are not set
+     * are left as they are when switching to the state.
+     */
+    public static final class State {
+        private final String name;
+        private final CharSequence title, description;
+        private final int imageResourceId;
+        private final Integer viewTint;
+
+        private State(Builder builder) {
+            name = builder.name;
+            title = builder.title;
+            description = builder.description;
+            imageResourceId = builder.imageResourceId;
+            viewTint = builder.viewTint;
+        }
+
+        /**
+         * Name of the state
+         * @return Name
+         */
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Title of the state
+         * @return Title, null if not set
+         */
+        @Nullable
+        public CharSequence getTitle() {
+            return title;
+        }
+
+        /**
+         * Description of the state
+         * @return Description, null if not set
+         */
+        @Nullable
+        public CharSequence getDescription() {
+            return description;
+        }
+
+        /**
+         * Image of the state
+         * @return Drawable resource id, 0 if not set
+         */
+        @DrawableRes
+        public int getImageResourceId() {
+            return imageResourceId;
+        }
+
+        /**
+         * Tint of the state
+         * @return Tint color, null if not set
+         */
+        @Nullable
+        public Integer getViewTint() {
+            return viewTint;
+        }
+
+        /**
+         * Builds a State in code
+         */
+        public static class Builder {
+            private final String name;
+            private CharSequence title, description;
+            private int imageResourceId;
+            private Integer viewTint;
+
+            /**
+             * Constructor
+             * @param name Name of the state, used to switch to it
+             */
+            public Builder(@NonNull String name) {
+                this.name = name;
+            }
+
+            /**
+             * Sets title of the state
+             * @param title Title, null to keep the one shown
+             * @return This builder
+             */
+            public Builder setTitle(@Nullable CharSequence title) {
+                this.title = title;
+
+                return this;
+            }
+
+            /**
+             * Sets description of the state
+             * @param description Description, null to keep the one shown
+             * @return This builder
+             */
+            public Builder setDescription(@Nullable CharSequence description) {
+                this.description = description;
+
+                return this;
+            }
+
+            /**
+             * Sets image of the state
+             * @param resourceId Drawable res id, 0 to keep the one shown
+             * @return This builder
+             */
+            public Builder setImageResourceId(@DrawableRes int resourceId) {
+                this.imageResourceId = resourceId;
+
+                return this;
+            }
+
+            /**
+             * Sets tint of the image and texts of the state
+             * @param color Tint color
+             * @return This builder
+             */
+            public Builder setViewTint(@ColorInt int color) {
+                this.viewTint = color;
+
+                return this;
+            }
+
+            /**
+             * Builds the state
+             * @return State
+             */
+            @NonNull
+            public State build() {
+                return new State(this);
+            }
+        }
+    }
 
     public PlaceholderView(Context context) {
         this(context,null);
@@ -59,68 +238,315 @@ public class PlaceholderView extends RelativeLayout {
     public PlaceholderView(Context context, AttributeSet attributeSet, int defStyle) {
         super(context, attributeSet, defStyle);
 
-        LayoutInflater.from(context).inflate(R.layout.placeholder_view, this);
-
-        descTV = findViewById(R.id.placeholder_desc_tv);
-        titleTV = findViewById(R.id.placeholder_title_tv);
-        imageView = findViewById(R.id.placeholder_image);
-
         dpi = (float)Resources.getSystem().getDisplayMetrics().densityDpi/ (float)DisplayMetrics.DENSITY_DEFAULT;
 
         processProperties(context, attributeSet);
     }
 
     private void processProperties(Context context, AttributeSet attributeSet) {
+        long start = WidgetMetrics.begin(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.ATTRIBUTES);
         TypedArray typedArray = context.obtainStyledAttributes(attributeSet, R.styleable.PlaceholderView);
 
         if (typedArray != null) {
-            int count = typedArray.getIndexCount();
-            for (int i = 0; i < count; i++) {
-                int property = typedArray.getIndex(i);
-
-                if (property == R.styleable.PlaceholderView_titleText) {
-                    setTitle(typedArray.getText(property).toString());
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_descriptionText) {
-                    setDescription(typedArray.getText(property).toString());
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_titleSize) {
-                    setTitleSize(typedArray.getDimension(property, 18*dpi));
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_descriptionSize) {
-                    setDescriptionSize(typedArray.getDimension(property, 12*dpi));
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_viewTint) {
-                    setViewTint(typedArray.getColor(property, titleTV.getCurrentTextColor()));
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_srcCompat) {
-                    int drawable = typedArray.getResourceId(property, R.drawable.ic_sentiment_neutral_black_64dp);
-                    setImageResourceId(drawable);
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_imageHeight) {
-                    setImageHeight(typedArray.getDimensionPixelSize(property, imageView.getLayoutParams().height));
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_imageWidth) {
-                    setImageWidth(typedArray.getDimensionPixelSize(property, imageView.getLayoutParams().width));
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_titleStyle) {
-                    setTitleTypeface(getTitleTypeface(), typedArray.getInt(property, -1));
-                    continue;
-                }
-                if (property == R.styleable.PlaceholderView_descriptionStyle) {
-                    setDescriptionTypeface(getDescriptionTypeface(), typedArray.getInt(property, -1));
-                }
+            Properties properties = readProperties(typedArray);
+            boolean deferInflation = typedArray.getBoolean(R.styleable.PlaceholderView_deferInflation, false);
+            typedArray.recycle();
+
+            // States need no children, they are available even while inflation is deferred
+            if (properties.states != null) {
+                for (State state : properties.states) addState(state);
             }
+            WidgetMetrics.end(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.ATTRIBUTES, start);
+
+            if (deferInflation) {
+                // Kept until the children are needed
+                pendingProperties = properties;
+                return;
+            }
+
+            ensureInflated();
+            applyProperties(properties);
+        } else {
+            WidgetMetrics.end(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.ATTRIBUTES, start);
+            ensureInflated();
+        }
+    }
+
+    /**
+     * Reads the properties, without applying them yet
+     * @param typedArray Attributes
+     * @return Properties
+     */
+    private Properties readProperties(TypedArray typedArray) {
+        Properties properties = new Properties();
+        properties.asyncImage = typedArray.getBoolean(R.styleable.PlaceholderView_asyncImage, false);
+        properties.imageLoadingColor = typedArray.getColor(R.styleable.PlaceholderView_imageLoadingColor, Color.TRANSPARENT);
+
+        int count = typedArray.getIndexCount();
+        for (int i = 0; i < count; i++) {
+            int property = typedArray.getIndex(i);
+
+            if (property == R.styleable.PlaceholderView_titleText) {
+                properties.title = typedArray.getText(property).toString();
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_descriptionText) {
+                properties.description = typedArray.getText(property).toString();
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_titleSize) {
+                properties.titleSize = typedArray.getDimension(property, 18*dpi);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_descriptionSize) {
+                properties.descriptionSize = typedArray.getDimension(property, 12*dpi);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_viewTint) {
+                properties.viewTint = typedArray.getColor(property, ContextCompat.getColor(getContext(), R.color.placeholder_tint));
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_srcCompat) {
+                properties.imageResourceId = typedArray.getResourceId(property, R.drawable.ic_sentiment_neutral_black_64dp);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_imageHeight) {
+                properties.imageHeight = typedArray.getDimensionPixelSize(property, ViewGroup.LayoutParams.WRAP_CONTENT);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_imageWidth) {
+                properties.imageWidth = typedArray.getDimensionPixelSize(property, ViewGroup.LayoutParams.WRAP_CONTENT);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_titleStyle) {
+                properties.titleStyle = typedArray.getInt(property, -1);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_descriptionStyle) {
+                properties.descriptionStyle = typedArray.getInt(property, -1);
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_placeholderStates) {
+                properties.states = readStates(typedArray.getResourceId(property, 0));
+                continue;
+            }
+            if (property == R.styleable.PlaceholderView_initialState) {
+                properties.initialState = typedArray.getString(property);
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Reads the states out of an array of styles
+     * @param arrayRes Array resource
+     * @return States
+     */
+    private List<State> readStates(@ArrayRes int arrayRes) {
+        List<State> states = new ArrayList<>();
+        if (arrayRes == 0) return states;
+
+        TypedArray styles = getResources().obtainTypedArray(arrayRes);
+        for (int i = 0; i < styles.length(); i++) {
+            int styleRes = styles.getResourceId(i, 0);
+            if (styleRes == 0) continue;
+
+            TypedArray typedArray = getContext().obtainStyledAttributes(styleRes, R.styleable.PlaceholderViewState);
+            String name = typedArray.getString(R.styleable.PlaceholderViewState_stateName);
+            if (name == null) {
+                typedArray.recycle();
+                styles.recycle();
+                throw new IllegalArgumentException("Every style of app:placeholderStates needs app:stateName");
+            }
+
+            State.Builder builder = new State.Builder(name);
+            if (typedArray.hasValue(R.styleable.PlaceholderViewState_titleText)) {
+                builder.setTitle(typedArray.getText(R.styleable.PlaceholderViewState_titleText));
+            }
+            if (typedArray.hasValue(R.styleable.PlaceholderViewState_descriptionText)) {
+                builder.setDescription(typedArray.getText(R.styleable.PlaceholderViewState_descriptionText));
+            }
+            if (typedArray.hasValue(R.styleable.PlaceholderViewState_srcCompat)) {
+                builder.setImageResourceId(typedArray.getResourceId(R.styleable.PlaceholderViewState_srcCompat, 0));
+            }
+            if (typedArray.hasValue(R.styleable.PlaceholderViewState_viewTint)) {
+                builder.setViewTint(typedArray.getColor(R.styleable.PlaceholderViewState_viewTint, Color.TRANSPARENT));
+            }
+            states.add(builder.build());
             typedArray.recycle();
         }
+        styles.recycle();
+
+        return states;
+    }
+
+    /**
+     * Applies the properties read, the children must be inflated by now
+     * @param properties Properties
+     */
+    private void applyProperties(Properties properties) {
+        if (properties.title != null) setTitle(properties.title);
+        if (properties.description != null) setDescription(properties.description);
+        if (properties.titleSize != null) setTitleSize(properties.titleSize);
+        if (properties.descriptionSize != null) setDescriptionSize(properties.descriptionSize);
+        if (properties.viewTint != null) setViewTint(properties.viewTint);
+        if (properties.imageHeight != null) setImageHeight(properties.imageHeight);
+        if (properties.imageWidth != null) setImageWidth(properties.imageWidth);
+        if (properties.titleStyle != null) setTitleTypeface(getTitleTypeface(), properties.titleStyle);
+        if (properties.descriptionStyle != null) setDescriptionTypeface(getDescriptionTypeface(), properties.descriptionStyle);
+
+        // Decoding in background needs the image size, so the image is set after it
+        if (properties.imageResourceId != null) {
+            if (properties.asyncImage) setImageResourceIdAsync(properties.imageResourceId, properties.imageLoadingColor);
+            else setImageResourceId(properties.imageResourceId);
+        }
+
+        if (properties.initialState != null) setState(properties.initialState);
+    }
+
+    /**
+     * Inflates the children, if they are not yet
+     * With app:deferInflation, this happens the first time the view is shown or any of its methods needs them
+     */
+    private void ensureInflated() {
+        if (imageView != null) return;
+
+        long start = WidgetMetrics.begin(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.INFLATE);
+        WidgetInflater.layoutInflater(getContext()).inflate(R.layout.placeholder_view, this);
+
+        descTV = findViewById(R.id.placeholder_desc_tv);
+        titleTV = findViewById(R.id.placeholder_title_tv);
+        imageView = findViewById(R.id.placeholder_image);
+        WidgetMetrics.end(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.INFLATE, start);
+
+        if (pendingProperties != null) {
+            Properties properties = pendingProperties;
+            pendingProperties = null;
+            applyProperties(properties);
+        }
+    }
+
+    /**
+     * Whether the children are inflated yet
+     * @return True if they are
+     */
+    public boolean isInflated() {
+        return imageView != null;
+    }
+
+    @Override
+    public void setVisibility(int visibility) {
+        if (visibility == VISIBLE) ensureInflated();
+        super.setVisibility(visibility);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (getVisibility() != GONE) ensureInflated();
+    }
+
+    @Override
+    public void requestLayout() {
+        LayoutStats.onLayoutRequested(WidgetMetrics.PLACEHOLDER_VIEW, this);
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        LayoutStats.onMeasured(WidgetMetrics.PLACEHOLDER_VIEW, this);
+        long start = WidgetMetrics.begin(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.MEASURE);
+
+        // Children are stacked, each measured once with the height the ones above left
+        int width = 0, height = 0;
+        int childState = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) continue;
+
+            measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, height);
+            MarginLayoutParams layoutParams = (MarginLayoutParams) child.getLayoutParams();
+            width = Math.max(width, child.getMeasuredWidth() + layoutParams.leftMargin + layoutParams.rightMargin);
+            height += child.getMeasuredHeight() + layoutParams.topMargin + layoutParams.bottomMargin;
+            childState = combineMeasuredStates(childState, child.getMeasuredState());
+        }
+        width += getPaddingLeft() + getPaddingRight();
+        height += getPaddingTop() + getPaddingBottom();
+
+        setMeasuredDimension(resolveSizeAndState(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec, childState),
+                resolveSizeAndState(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec,
+                        childState << MEASURED_HEIGHT_STATE_SHIFT));
+        WidgetMetrics.end(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.MEASURE, start);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        long start = WidgetMetrics.begin(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.LAYOUT);
+
+        int contentHeight = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) continue;
+
+            MarginLayoutParams layoutParams = (MarginLayoutParams) child.getLayoutParams();
+            contentHeight += child.getMeasuredHeight() + layoutParams.topMargin + layoutParams.bottomMargin;
+        }
+
+        // Centered both ways in the space inside the padding
+        int paddingLeft = getPaddingLeft();
+        int availableWidth = right - left - paddingLeft - getPaddingRight();
+        int availableHeight = bottom - top - getPaddingTop() - getPaddingBottom();
+        int childTop = getPaddingTop() + Math.max((availableHeight - contentHeight) / 2, 0);
+
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) continue;
+
+            MarginLayoutParams layoutParams = (MarginLayoutParams) child.getLayoutParams();
+            int childWidth = child.getMeasuredWidth(), childHeight = child.getMeasuredHeight();
+            int childLeft = paddingLeft + layoutParams.leftMargin
+                    + (availableWidth - layoutParams.leftMargin - layoutParams.rightMargin - childWidth) / 2;
+
+            childTop += layoutParams.topMargin;
+            child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+            childTop += childHeight + layoutParams.bottomMargin;
+        }
+        WidgetMetrics.end(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.LAYOUT, start);
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams layoutParams) {
+        return layoutParams instanceof MarginLayoutParams;
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet attributeSet) {
+        return new MarginLayoutParams(getContext(), attributeSet);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams layoutParams) {
+        return layoutParams instanceof MarginLayoutParams
+                ? new MarginLayoutParams((MarginLayoutParams) layoutParams)
+                : new MarginLayoutParams(layoutParams);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        long start = WidgetMetrics.begin(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.DRAW);
+        super.dispatchDraw(canvas);
+        WidgetMetrics.end(WidgetMetrics.PLACEHOLDER_VIEW, WidgetMetrics.DRAW, start);
     }
 
     /**
@@ -128,6 +554,8 @@ public class PlaceholderView extends RelativeLayout {
      * @param description Description res id
      */
     public void setDescription(@StringRes int description) {
+        ensureInflated();
+        TextPrecomputer.cancel(descTV);
         descTV.setText(description);
     }
 
@@ -136,14 +564,29 @@ public class PlaceholderView extends RelativeLayout {
      * @param description Description string
      */
     public void setDescription(@NonNull String description) {
+        ensureInflated();
+        TextPrecomputer.cancel(descTV);
         descTV.setText(description);
     }
 
+    /**
+     * Sets description of this view after warming the platform text caches with it on a background thread
+     * The TextView still lays it out on the main thread, but mostly from those caches
+     * Only the latest description set is shown, whether it was set with this or with setDescription()
+     * @param description Description text, must not be modified afterwards
+     */
+    public void setDescriptionAsync(@NonNull CharSequence description) {
+        ensureInflated();
+        TextPrecomputer.setTextAsync(descTV, description);
+    }
+
     /**
      * Sets title of this view
      * @param title Title res id
      */
     public void setTitle(@StringRes int title) {
+        ensureInflated();
+        TextPrecomputer.cancel(titleTV);
         titleTV.setText(title);
     }
 
@@ -152,15 +595,211 @@ public class PlaceholderView extends RelativeLayout {
      * @param title Title string
      */
     public void setTitle(@NonNull String title) {
+        ensureInflated();
+        TextPrecomputer.cancel(titleTV);
         titleTV.setText(title);
     }
 
+    /**
+     * Sets title of this view after warming the platform text caches with it on a background thread
+     * The TextView still lays it out on the main thread, but mostly from those caches
+     * Only the latest title set is shown, whether it was set with this or with setTitle()
+     * @param title Title text, must not be modified afterwards
+     */
+    public void setTitleAsync(@NonNull CharSequence title) {
+        ensureInflated();
+        TextPrecomputer.setTextAsync(titleTV, title);
+    }
+
     /**
      * Sets the resource id for the imageView
      * @param resourceId Resource id for the image to be shown
      */
     public void setImageResourceId(@DrawableRes int resourceId) {
-        imageView.setImageResource(resourceId);
+        ensureInflated();
+        imageGeneration++;
+        imageResourceId = resourceId;
+        showCachedImage();
+    }
+
+    /**
+     * Sets the resource id for the imageView, decoding it on a background thread
+     * Bitmaps are downsampled to the image width and height, so that large illustrations
+     * do not take more memory than needed. Other drawables, like vectors, are set as they are.
+     * @param resourceId Resource id for the image to be shown
+     */
+    public void setImageResourceIdAsync(@DrawableRes int resourceId) {
+        setImageResourceIdAsync(resourceId, Color.TRANSPARENT);
+    }
+
+    /**
+     * Sets the resource id for the imageView, decoding it on a background thread
+     * Bitmaps are downsampled to the image width and height, so that large illustrations
+     * do not take more memory than needed. Other drawables, like vectors, are set as they are.
+     * @param resourceId Resource id for the image to be shown
+     * @param loadingColor Color shown in place of the image while it is decoded, transparent to keep the current image
+     */
+    public void setImageResourceIdAsync(@DrawableRes final int resourceId, @ColorInt int loadingColor) {
+        ensureInflated();
+        final int generation = ++imageGeneration;
+        final Resources resources = getResources();
+
+        // Prefer the size set, the laid out size otherwise
+        ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
+        final int width = layoutParams.width > 0 ? layoutParams.width : imageView.getWidth();
+        final int height = layoutParams.height > 0 ? layoutParams.height : imageView.getHeight();
+
+        if (Color.alpha(loadingColor) != 0) imageView.setImageDrawable(new ColorDrawable(loadingColor));
+
+        WidgetExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = SampledImageLoader.decode(resources, resourceId, width, height);
+
+                WidgetExecutors.main().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != imageGeneration) return;
+
+                        if (bitmap != null) {
+                            imageResourceId = 0;
+                            imageView.setImageDrawable(new BitmapDrawable(resources, bitmap));
+                            applyImageTint();
+                        } else {
+                            imageResourceId = resourceId;
+                            showCachedImage();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Adds a state, which can be switched to with setState()
+     * A state with the same name is replaced
+     * @param state State
+     */
+    public void addState(@NonNull State state) {
+        states.put(state.getName(), state);
+    }
+
+    /**
+     * Whether a state with the given name was added
+     * @param name Name of the state
+     * @return True if it was
+     */
+    public boolean hasState(@NonNull String name) {
+        return states.containsKey(name);
+    }
+
+    /**
+     * Name of the state switched to last
+     * @return Name, null if no state was set
+     */
+    @Nullable
+    public String getState() {
+        return currentState;
+    }
+
+    /**
+     * Switches to a state added before
+     * Images come from DrawableCache, so switching back and forth only swaps them
+     * @param name Name of the state
+     */
+    public void setState(@NonNull String name) {
+        setState(name, false);
+    }
+
+    /**
+     * Switches to a state added before, optionally cross fading to it
+     * @param name Name of the state
+     * @param animate True to fade out the current state and fade in the new one
+     */
+    public void setState(@NonNull String name, boolean animate) {
+        final State state = states.get(name);
+        if (state == null) throw new IllegalArgumentException("No state named " + name);
+        if (name.equals(currentState)) return;
+
+        ensureInflated();
+        currentState = name;
+        animate().cancel();
+
+        if (!animate || getVisibility() != VISIBLE || getWindowToken() == null) {
+            setAlpha(1);
+            applyState(state);
+            return;
+        }
+
+        final long duration = getResources().getInteger(android.R.integer.config_shortAnimTime) / 2;
+        animate().alpha(0).setDuration(duration).withEndAction(new Runnable() {
+            @Override
+            public void run() {
+                applyState(state);
+                animate().alpha(1).setDuration(duration);
+            }
+        });
+    }
+
+    /**
+     * Shows the properties of the state which are set, skipping the ones already shown
+     * @param state State
+     */
+    private void applyState(@NonNull State state) {
+        if (state.getTitle() != null && !TextUtils.equals(titleTV.getText(), state.getTitle())) {
+            TextPrecomputer.cancel(titleTV);
+            titleTV.setText(state.getTitle());
+        }
+        if (state.getDescription() != null && !TextUtils.equals(descTV.getText(), state.getDescription())) {
+            TextPrecomputer.cancel(descTV);
+            descTV.setText(state.getDescription());
+        }
+
+        boolean tintChanged = state.getViewTint() != null && !state.getViewTint().equals(viewTint);
+        if (tintChanged) {
+            viewTint = state.getViewTint();
+            titleTV.setTextColor(viewTint);
+            descTV.setTextColor(viewTint);
+        }
+
+        if (state.getImageResourceId() != 0 && state.getImageResourceId() != imageResourceId) {
+            imageGeneration++;
+            imageResourceId = state.getImageResourceId();
+            showCachedImage();
+        } else if (tintChanged) {
+            applyImageTint();
+        }
+    }
+
+    /**
+     * Shows the image set by resource id, sized to the image size set and with the tint baked in
+     * Every view showing the same image the same way shares its bitmap
+     */
+    private void showCachedImage() {
+        ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
+        Drawable image = DrawableCache.get(getContext(), imageResourceId, imageTint(),
+                Math.max(layoutParams.width, 0), Math.max(layoutParams.height, 0));
+
+        // The tint is part of the image already, the one of the layout would paint over it
+        imageView.clearColorFilter();
+        ImageViewCompat.setImageTintList(imageView, null);
+        imageView.setImageDrawable(image);
+    }
+
+    /**
+     * Applies the tint to whatever image is shown
+     */
+    private void applyImageTint() {
+        if (imageResourceId != 0) showCachedImage();
+        else imageView.setColorFilter(imageTint());
+    }
+
+    /**
+     * Tint of the image, the default of the layout unless one was set
+     */
+    @ColorInt
+    private int imageTint() {
+        return viewTint != null ? viewTint : ContextCompat.getColor(getContext(), R.color.placeholder_tint);
     }
 
     /**
@@ -168,7 +807,11 @@ public class PlaceholderView extends RelativeLayout {
      * @param drawable Drawable to set in the imageView
      */
     public void setImageDrawable(@NonNull Drawable drawable) {
+        ensureInflated();
+        imageGeneration++;
+        imageResourceId = 0;
         imageView.setImageDrawable(drawable);
+        applyImageTint();
     }
 
     /**
@@ -176,6 +819,7 @@ public class PlaceholderView extends RelativeLayout {
      * @param size Size
      */
     public void setTitleSize(float size) {
+        ensureInflated();
         titleTV.setTextSize(TypedValue.COMPLEX_UNIT_SP, size/dpi);
     }
 
@@ -184,6 +828,7 @@ public class PlaceholderView extends RelativeLayout {
      * @param size Size
      */
     public void setDescriptionSize(float size) {
+        ensureInflated();
         descTV.setTextSize(TypedValue.COMPLEX_UNIT_SP, size/dpi);
     }
 
@@ -193,6 +838,7 @@ public class PlaceholderView extends RelativeLayout {
      * @param style Style to set
      */
     public void setTitleTypeface(@Nullable Typeface typeface, int style) {
+        ensureInflated();
         titleTV.setTypeface(typeface, style);
     }
 
@@ -202,6 +848,7 @@ public class PlaceholderView extends RelativeLayout {
      * @param style  Style to set
      */
     public void setDescriptionTypeface(@Nullable Typeface typeface, int style) {
+        ensureInflated();
         descTV.setTypeface(typeface, style);
     }
 
@@ -210,6 +857,7 @@ public class PlaceholderView extends RelativeLayout {
      * @return Typeface
      */
     public Typeface getTitleTypeface() {
+        ensureInflated();
         return titleTV.getTypeface();
     }
 
@@ -218,6 +866,7 @@ public class PlaceholderView extends RelativeLayout {
      * @return Typeface
      */
     public Typeface getDescriptionTypeface() {
+        ensureInflated();
         return descTV.getTypeface();
     }
 
@@ -226,8 +875,10 @@ public class PlaceholderView extends RelativeLayout {
      * @param height Height
      */
     public void setImageHeight(@Dimension int height) {
+        ensureInflated();
         imageView.getLayoutParams().height = height;
         imageView.requestLayout();
+        if (imageResourceId != 0) showCachedImage();
     }
 
     /**
@@ -235,8 +886,10 @@ public class PlaceholderView extends RelativeLayout {
      * @param width Width
      */
     public void setImageWidth(@Dimension int width) {
+        ensureInflated();
         imageView.getLayoutParams().width = width;
         imageView.requestLayout();
+        if (imageResourceId != 0) showCachedImage();
     }
 
     /**
@@ -244,9 +897,11 @@ public class PlaceholderView extends RelativeLayout {
      * @param color Tint color
      */
     public void setViewTint(@ColorInt int color) {
-        imageView.setColorFilter(color);
+        ensureInflated();
+        viewTint = color;
         titleTV.setTextColor(color);
         descTV.setTextColor(color);
+        applyImageTint();
     }
 
     /**
@@ -254,6 +909,7 @@ public class PlaceholderView extends RelativeLayout {
      * @return Title textview
      */
     public TextView getTitleTextView() {
+        ensureInflated();
         return titleTV;
     }
 
@@ -262,6 +918,7 @@ public class PlaceholderView extends RelativeLayout {
      * @return Description textview
      */
     public TextView getDescriptionTextView() {
+        ensureInflated();
         return descTV;
     }
 
@@ -270,6 +927,7 @@ public class PlaceholderView extends RelativeLayout {
      * @return imageview
      */
     public AppCompatImageView getImageView() {
+        ensureInflated();
         return imageView;
     }
 }
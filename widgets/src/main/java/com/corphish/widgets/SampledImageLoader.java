@@ -0,0 +1,95 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Decodes bitmap resources downsampled to the size they are shown at
+ * It does blocking work, so it is meant to be used off the main thread
+ */
+
+final class SampledImageLoader {
+    private SampledImageLoader() {
+    }
+
+    /**
+     * Decodes a bitmap resource, skipping as many pixels as possible while still covering the requested size
+     * @param resources Resources
+     * @param resId Drawable resource id
+     * @param reqWidth Width it is shown at, 0 if not known
+     * @param reqHeight Height it is shown at, 0 if not known
+     * @return Bitmap, null if the resource is not a bitmap, like vector or other XML drawables
+     */
+    @Nullable
+    static Bitmap decode(@NonNull Resources resources, @DrawableRes int resId, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        // Density of the resource, filled in while decoding the bounds, 0 if it is not scaled by density
+        int density = options.inDensity != 0 ? options.inDensity : resources.getDisplayMetrics().densityDpi;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+
+        // Keep the density of the resource, BitmapDrawable scales it when drawn
+        // instead of the decoder allocating the scaled pixels
+        options.inScaled = false;
+
+        Bitmap bitmap = BitmapFactory.decodeResource(resources, resId, options);
+
+        // Every sampled pixel stands for inSampleSize pixels of the resource, lowering the density as much
+        // keeps the size it is shown at the same as without sampling
+        if (bitmap != null && options.inSampleSize > 1) {
+            bitmap.setDensity(sampledDensity(density, options.inSampleSize));
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Density of a bitmap sampled from a resource, so that it is shown at the size of the resource
+     */
+    static int sampledDensity(int density, int sampleSize) {
+        return Math.max(1, Math.round((float) density / sampleSize));
+    }
+
+    /**
+     * Largest power of 2 the image can be divided by while still covering the requested size
+     */
+    static int sampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (reqWidth <= 0 && reqHeight <= 0) return sampleSize;
+
+        while ((reqWidth <= 0 || width / (sampleSize * 2) >= reqWidth)
+                && (reqHeight <= 0 || height / (sampleSize * 2) >= reqHeight)) {
+            sampleSize *= 2;
+        }
+
+        return sampleSize;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of the text layouts built by the views drawing their text themselves
+ * Layouts are keyed by text, paint properties and width, so the same keys and values shown
+ * across many rows, like "Price" or "Status", are measured and laid out once. The cache is
+ * bounded and drops the least recently used layouts. Only plain strings are cached, styled
+ * text is laid out every time, as its spans may change.
+ * Cached layouts are built with a private copy of the paint, so later changes to the paint
+ * of a view do not affect them. It is safe to use from any thread.
+ */
+
+public final class TextLayoutCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    // Marks keys for desired widths, layouts always have a width of 0 or more
+    private static final int DESIRED_WIDTH = -1;
+
+    private static final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    private static volatile LruCache<Key, StaticLayout> layouts = new LruCache<>(DEFAULT_MAX_SIZE);
+    private static volatile LruCache<Key, Integer> desiredWidths = new LruCache<>(DEFAULT_MAX_SIZE);
+
+    private TextLayoutCache() {
+    }
+
+    /**
+     * Text and the paint properties affecting its layout
+     */
+    private static final class Key {
+        private final String text;
+        private final float textSize, textSkewX, textScaleX, letterSpacing;
+        private final Typeface typeface;
+        private final int flags;
+        private final Locale locale;
+        private final int width;
+        private final int hashCode;
+
+        Key(String text, TextPaint paint, int width) {
+            this.text = text;
+            this.textSize = paint.getTextSize();
+            this.textSkewX = paint.getTextSkewX();
+            this.textScaleX = paint.getTextScaleX();
+            this.letterSpacing = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? paint.getLetterSpacing() : 0;
+            this.typeface = paint.getTypeface();
+            this.flags = paint.getFlags();
+            this.locale = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? paint.getTextLocale() : null;
+            this.width = width;
+
+            int hash = text.hashCode();
+            hash = 31 * hash + Float.floatToIntBits(textSize);
+            hash = 31 * hash + Float.floatToIntBits(textSkewX);
+            hash = 31 * hash + Float.floatToIntBits(textScaleX);
+            hash = 31 * hash + Float.floatToIntBits(letterSpacing);
+            hash = 31 * hash + (typeface != null ? typeface.hashCode() : 0);
+            hash = 31 * hash + flags;
+            hash = 31 * hash + (locale != null ? locale.hashCode() : 0);
+            hash = 31 * hash + width;
+            hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                    && width == key.width
+                    && flags == key.flags
+                    && Float.compare(textSize, key.textSize) == 0
+                    && Float.compare(textSkewX, key.textSkewX) == 0
+                    && Float.compare(textScaleX, key.textScaleX) == 0
+                    && Float.compare(letterSpacing, key.letterSpacing) == 0
+                    && (typeface != null ? typeface.equals(key.typeface) : key.typeface == null)
+                    && (locale != null ? locale.equals(key.locale) : key.locale == null)
+                    && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Gets the layout of the text, building and caching it if needed
+     * The layout draws with its own paint, set the color on it before drawing
+     * @param text Text
+     * @param paint Paint to measure with
+     * @param width Width in pixels
+     * @return Layout
+     */
+    @NonNull
+    static StaticLayout obtain(@Nullable CharSequence text, @NonNull TextPaint paint, int width) {
+        if (!(text instanceof String)) return TextLayouts.build(text, new TextPaint(paint), width);
+
+        width = Math.max(width, 0);
+        Key key = new Key((String) text, paint, width);
+        LruCache<Key, StaticLayout> cache = layouts;
+
+        StaticLayout layout = cache.get(key);
+        if (layout != null) {
+            hits.incrementAndGet();
+            return layout;
+        }
+
+        misses.incrementAndGet();
+        layout = TextLayouts.build(text, new TextPaint(paint), width);
+        cache.put(key, layout);
+
+        return layout;
+    }
+
+    /**
+     * Gets the width the text would like to occupy, measuring and caching it if needed
+     * @param text Text
+     * @param paint Paint to measure with
+     * @return Width in pixels
+     */
+    static int desiredWidth(@Nullable CharSequence text, @NonNull TextPaint paint) {
+        if (!(text instanceof String)) return TextLayouts.desiredWidth(text, paint);
+
+        Key key = new Key((String) text, paint, DESIRED_WIDTH);
+        LruCache<Key, Integer> cache = desiredWidths;
+
+        Integer width = cache.get(key);
+        if (width != null) {
+            hits.incrementAndGet();
+            return width;
+        }
+
+        misses.incrementAndGet();
+        width = TextLayouts.desiredWidth(text, paint);
+        cache.put(key, width);
+
+        return width;
+    }
+
+    /**
+     * Sets the maximum number of layouts kept, and as many desired widths
+     * Clears the cache
+     * @param maxSize Maximum number of layouts
+     */
+    public static void setMaxSize(int maxSize) {
+        layouts = new LruCache<>(maxSize);
+        desiredWidths = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Number of times a layout or width was found in the cache
+     * @return Hit count
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of times a layout or width had to be built
+     * @return Miss count
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Share of the lookups served from the cache
+     * @return Hit rate, from 0 to 1, 0 if nothing was looked up
+     */
+    public static float getHitRate() {
+        long hitCount = getHitCount(), total = hitCount + getMissCount();
+        return total == 0 ? 0 : (float) hitCount / total;
+    }
+
+    /**
+     * Number of the layouts cached
+     * @return Size of the cache
+     */
+    public static int size() {
+        return layouts.size();
+    }
+
+    /**
+     * Clears the cache and resets the counters
+     */
+    public static void clear() {
+        layouts.evictAll();
+        desiredWidths.evictAll();
+        hits.set(0);
+        misses.set(0);
+    }
+}
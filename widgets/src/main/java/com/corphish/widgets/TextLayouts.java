@@ -0,0 +1,203 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.TypedValue;
+
+/**
+ * Text helpers shared by the views which draw their text themselves
+ * instead of delegating to TextViews
+ */
+
+final class TextLayouts {
+    // Attributes read out of a text appearance, must be kept sorted
+    private static final int[] APPEARANCE_ATTRS = {
+            android.R.attr.textSize,
+            android.R.attr.textStyle,
+            android.R.attr.textColor
+    };
+
+    private static final int[] STATE_ENABLED = {android.R.attr.state_enabled};
+    private static final int[] STATE_DISABLED = {};
+
+    private TextLayouts() {
+    }
+
+    /**
+     * Creates a paint configured the same way a TextView configures its own
+     * @return Text paint
+     */
+    static TextPaint newPaint() {
+        return new TextPaint(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
+    }
+
+    /**
+     * Builds a layout for the text, using the same spacing rules as a TextView
+     * @param text Text to lay out
+     * @param paint Paint to measure and draw with
+     * @param width Width in pixels
+     * @return Layout
+     */
+    static StaticLayout build(@Nullable CharSequence text, @NonNull TextPaint paint, int width) {
+        return build(text, paint, width, Layout.Alignment.ALIGN_NORMAL);
+    }
+
+    /**
+     * Builds a layout for the text with the given alignment, using the same spacing rules as a TextView
+     * @param text Text to lay out
+     * @param paint Paint to measure and draw with
+     * @param width Width in pixels
+     * @param alignment Alignment of the lines
+     * @return Layout
+     */
+    @SuppressWarnings("deprecation")
+    static StaticLayout build(@Nullable CharSequence text, @NonNull TextPaint paint, int width,
+                              @NonNull Layout.Alignment alignment) {
+        return new StaticLayout(text == null ? "" : text, paint, Math.max(width, 0), alignment, 1f, 0f, true);
+    }
+
+    /**
+     * Width the text would like to occupy if it had all the space it wanted
+     * @param text Text to measure
+     * @param paint Paint to measure with
+     * @return Width in pixels
+     */
+    static int desiredWidth(@Nullable CharSequence text, @NonNull TextPaint paint) {
+        return text == null ? 0 : (int) Math.ceil(Layout.getDesiredWidth(text, paint));
+    }
+
+    /**
+     * Sets the color of the paint for the enabled state of the text
+     * @param paint Paint
+     * @param colors Colors of the text, null to leave the paint as it is
+     * @param enabled Whether the text is enabled
+     * @param drawableState Drawable state of the view
+     */
+    static void applyColor(@NonNull TextPaint paint, @Nullable ColorStateList colors, boolean enabled, int[] drawableState) {
+        if (colors != null) {
+            paint.setColor(colors.getColorForState(enabled ? STATE_ENABLED : STATE_DISABLED, colors.getDefaultColor()));
+        }
+        paint.drawableState = drawableState;
+    }
+
+    /**
+     * Draws a text layout with its background, the way a TextView with padding would
+     * Layouts may be shared through TextLayoutCache, so the color and state of the paint are copied to the layout's own paint
+     * @param canvas Canvas
+     * @param layout Layout
+     * @param paint Paint of the view, with its color already applied
+     * @param backgroundPaint Paint to draw the background with
+     * @param backgroundColor Background color
+     * @param padding Padding around the text
+     * @param left Left of the block
+     * @param top Top of the block
+     * @return Bottom of the drawn block
+     */
+    static int draw(@NonNull Canvas canvas, @NonNull StaticLayout layout, @NonNull TextPaint paint,
+                    @NonNull Paint backgroundPaint, int backgroundColor, @NonNull Rect padding, int left, int top) {
+        int bottom = top + padding.top + layout.getHeight() + padding.bottom;
+
+        if (Color.alpha(backgroundColor) != 0) {
+            backgroundPaint.setColor(backgroundColor);
+            canvas.drawRect(left, top, left + padding.left + layout.getWidth() + padding.right, bottom, backgroundPaint);
+        }
+
+        TextPaint layoutPaint = layout.getPaint();
+        if (layoutPaint != paint) {
+            layoutPaint.setColor(paint.getColor());
+            layoutPaint.drawableState = paint.drawableState;
+        }
+
+        canvas.save();
+        canvas.translate(left + padding.left, top + padding.top);
+        layout.draw(canvas);
+        canvas.restore();
+
+        return bottom;
+    }
+
+    /**
+     * Applies the typeface and style to the paint, same as TextView.setTypeface(Typeface, int)
+     * @param paint Paint
+     * @param typeface Typeface
+     * @param style Text style
+     */
+    static void applyTypeface(@NonNull TextPaint paint, @Nullable Typeface typeface, int style) {
+        if (style > 0) {
+            typeface = typeface == null ? Typeface.defaultFromStyle(style) : Typeface.create(typeface, style);
+            paint.setTypeface(typeface);
+
+            // Whatever the typeface cannot do by itself is faked
+            int need = style & ~(typeface != null ? typeface.getStyle() : 0);
+            paint.setFakeBoldText((need & Typeface.BOLD) != 0);
+            paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+        } else {
+            paint.setFakeBoldText(false);
+            paint.setTextSkewX(0);
+            paint.setTypeface(typeface);
+        }
+    }
+
+    /**
+     * Applies a text appearance to the paint
+     * Size and style are applied directly, colors are returned as they depend on state
+     * @param context Context
+     * @param paint Paint
+     * @param appearance Text appearance style, or a theme attribute pointing to one
+     * @return Colors of the appearance, null if it does not specify any
+     */
+    @Nullable
+    static ColorStateList applyTextAppearance(@NonNull Context context, @NonNull TextPaint paint, @StyleRes int appearance) {
+        // The defaults used by the widgets are theme attributes, not styles
+        TypedValue typedValue = new TypedValue();
+        if (context.getTheme().resolveAttribute(appearance, typedValue, true) && typedValue.resourceId != 0) {
+            appearance = typedValue.resourceId;
+        }
+
+        TypedArray typedArray = context.obtainStyledAttributes(appearance, APPEARANCE_ATTRS);
+        ColorStateList colors = null;
+
+        if (typedArray != null) {
+            if (typedArray.hasValue(0)) {
+                paint.setTextSize(typedArray.getDimensionPixelSize(0, (int) paint.getTextSize()));
+            }
+            if (typedArray.hasValue(1)) {
+                applyTypeface(paint, paint.getTypeface(), typedArray.getInt(1, Typeface.NORMAL));
+            }
+            colors = typedArray.getColorStateList(2);
+            typedArray.recycle();
+        }
+
+        return colors;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.text.TextPaint;
+import android.widget.TextView;
+
+/**
+ * Sets text on TextViews after warming the platform text caches with it on a background thread
+ * The text is laid out off the main thread with a copy of the TextView's paint at its current width,
+ * and that layout is thrown away. The TextView still builds its own layout on the main thread,
+ * only its glyph shaping and word measurements are then mostly served from the process wide caches
+ * of the platform. The warm-up takes the same text shaping lock as the main thread while it runs.
+ * TextViews cannot take a layout built elsewhere before PrecomputedText, which needs API 28.
+ * Only the latest text set on a TextView is applied, older results arriving late are dropped.
+ */
+
+final class TextPrecomputer {
+    private TextPrecomputer() {
+    }
+
+    /**
+     * Warms the text caches with the text in background, then sets it on the main thread
+     * Must be called from the main thread
+     * @param textView TextView to set the text on
+     * @param text Text to set, must not be modified afterwards
+     */
+    static void setTextAsync(@NonNull final TextView textView, @NonNull final CharSequence text) {
+        final int generation = nextGeneration(textView);
+        final int width = textView.getWidth() - textView.getCompoundPaddingLeft() - textView.getCompoundPaddingRight();
+
+        // Not laid out yet, there is no width to measure against
+        if (width <= 0) {
+            textView.setText(text);
+            return;
+        }
+
+        final TextPaint paint = new TextPaint(textView.getPaint());
+        WidgetExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                TextLayouts.build(text, paint, width);
+
+                WidgetExecutors.main().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == currentGeneration(textView)) textView.setText(text);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drops any text still being precomputed for the TextView
+     * To be called whenever text is set on it directly
+     * @param textView TextView
+     */
+    static void cancel(@NonNull TextView textView) {
+        if (textView.getTag(R.id.widgets_text_generation) != null) nextGeneration(textView);
+    }
+
+    private static int currentGeneration(TextView textView) {
+        Object tag = textView.getTag(R.id.widgets_text_generation);
+        return tag instanceof Integer ? (Integer) tag : 0;
+    }
+
+    private static int nextGeneration(TextView textView) {
+        int generation = currentGeneration(textView) + 1;
+        textView.setTag(R.id.widgets_text_generation, generation);
+
+        return generation;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads used by the widgets for work which is kept away from the main thread
+ */
+
+final class WidgetExecutors {
+    private static final int THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static volatile ExecutorService background;
+    private static volatile Handler main;
+
+    private WidgetExecutors() {
+    }
+
+    /**
+     * Executor running tasks on low priority background threads
+     * @return Background executor
+     */
+    @NonNull
+    static ExecutorService background() {
+        if (background == null) {
+            synchronized (WidgetExecutors.class) {
+                if (background == null) {
+                    background = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(@NonNull final Runnable runnable) {
+                            Thread thread = new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                    runnable.run();
+                                }
+                            }, "widgets-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+
+        return background;
+    }
+
+    /**
+     * Handler posting to the main thread
+     * @return Main thread handler
+     */
+    @NonNull
+    static Handler main() {
+        if (main == null) {
+            synchronized (WidgetExecutors.class) {
+                if (main == null) main = new Handler(Looper.getMainLooper());
+            }
+        }
+
+        return main;
+    }
+
+    /**
+     * Whether the caller is running on the main thread
+     * @return True if it is
+     */
+    static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+}
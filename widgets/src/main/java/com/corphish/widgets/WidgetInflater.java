@@ -0,0 +1,256 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates widgets off the main thread
+ * Views are constructed on a background thread and delivered on the main thread, so that
+ * heavy screens can show their first frames before all of their widgets exist.
+ * If a view cannot be constructed off the main thread, it is constructed on the main thread instead.
+ * Widgets constructed in background inflate their children with a clone of the LayoutInflater of the
+ * context, so that they do not wait on the lock of the one the main thread inflates the screen with.
+ * The clone has the same factories, like the one of AppCompat, which then run off the main thread as well.
+ */
+
+public final class WidgetInflater {
+    private static final String TAG = "WidgetInflater";
+
+    // Inflater of the widget being constructed in background on this thread
+    private static final ThreadLocal<LayoutInflater> backgroundInflater = new ThreadLocal<>();
+
+    /**
+     * Creates a widget
+     * @param <T> Type of the widget
+     */
+    public interface Factory<T extends View> {
+        /**
+         * Creates the widget, this may be called on any thread
+         * Widgets of this library created here in background use a LayoutInflater of their own,
+         * views inflated by other means use the shared one of the context.
+         * @param context Context
+         * @return Widget
+         */
+        @NonNull
+        T create(@NonNull Context context);
+    }
+
+    /**
+     * Receives an inflated widget, on the main thread
+     * @param <T> Type of the widget
+     */
+    public interface Callback<T extends View> {
+        void onInflated(@NonNull T view);
+    }
+
+    public static final Factory<KeyValueView> KEY_VALUE_VIEW = new Factory<KeyValueView>() {
+        @NonNull
+        @Override
+        public KeyValueView create(@NonNull Context context) {
+            return new KeyValueView(context);
+        }
+    };
+
+    public static final Factory<FlatKeyValueView> FLAT_KEY_VALUE_VIEW = new Factory<FlatKeyValueView>() {
+        @NonNull
+        @Override
+        public FlatKeyValueView create(@NonNull Context context) {
+            return new FlatKeyValueView(context);
+        }
+    };
+
+    public static final Factory<PlaceholderView> PLACEHOLDER_VIEW = new Factory<PlaceholderView>() {
+        @NonNull
+        @Override
+        public PlaceholderView create(@NonNull Context context) {
+            return new PlaceholderView(context);
+        }
+    };
+
+    private WidgetInflater() {
+    }
+
+    /**
+     * Creates a widget on a background thread and delivers it on the main thread
+     * @param context Context, the one of the Activity the widget is going to be shown in
+     * @param factory Widget factory, like KEY_VALUE_VIEW
+     * @param callback Callback receiving the widget
+     * @param <T> Type of the widget
+     */
+    public static <T extends View> void inflateAsync(@NonNull final Context context, @NonNull final Factory<T> factory,
+                                                     @NonNull final Callback<T> callback) {
+        WidgetExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final T view = createInBackground(context, factory);
+
+                WidgetExecutors.main().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onInflated(view != null ? view : factory.create(context));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Creates the widget, returning null if it could not be done on this thread
+     */
+    private static <T extends View> T createInBackground(Context context, Factory<T> factory) {
+        try {
+            backgroundInflater.set(LayoutInflater.from(context).cloneInContext(context));
+            return factory.create(context);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to create the widget in background, falling back to the main thread", e);
+        } finally {
+            backgroundInflater.remove();
+        }
+
+        return null;
+    }
+
+    /**
+     * LayoutInflater the widgets inflate their children with
+     * While a widget is constructed in background, it is the clone made for it, otherwise the one of the context
+     * @param context Context of the widget
+     * @return LayoutInflater
+     */
+    @NonNull
+    static LayoutInflater layoutInflater(@NonNull Context context) {
+        LayoutInflater inflater = backgroundInflater.get();
+        return inflater != null && inflater.getContext() == context ? inflater : LayoutInflater.from(context);
+    }
+
+    /**
+     * Pool of widgets created ahead of time
+     * Warm it up for the widgets a screen is going to need, and take them out of it instead of constructing them.
+     * As the widgets hold the context, keep a pool per Activity and clear it when the Activity is destroyed.
+     */
+    public static class Pool {
+        private final Context context;
+        private final int maxSize;
+        private final Map<Factory<?>, ArrayDeque<View>> views = new HashMap<>();
+
+        /**
+         * Constructor
+         * @param context Context the widgets are created with
+         * @param maxSize Maximum number of widgets kept per type
+         */
+        public Pool(@NonNull Context context, int maxSize) {
+            this.context = context;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Creates widgets in background and keeps them in the pool
+         * @param factory Widget factory
+         * @param count Number of widgets to create
+         * @param <T> Type of the widget
+         */
+        public <T extends View> void warm(@NonNull final Factory<T> factory, int count) {
+            for (int i = 0; i < count; i++) {
+                inflateAsync(context, factory, new Callback<T>() {
+                    @Override
+                    public void onInflated(@NonNull T view) {
+                        release(view, factory);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Takes a widget out of the pool, creating it right away if the pool has none
+         * @param factory Widget factory
+         * @param <T> Type of the widget
+         * @return Widget
+         */
+        @NonNull
+        public <T extends View> T acquire(@NonNull Factory<T> factory) {
+            T view = poll(factory);
+            return view != null ? view : factory.create(context);
+        }
+
+        /**
+         * Takes a widget out of the pool, creating it in background if the pool has none
+         * @param factory Widget factory
+         * @param callback Callback receiving the widget, called right away if the pool has one
+         * @param <T> Type of the widget
+         */
+        public <T extends View> void acquireAsync(@NonNull Factory<T> factory, @NonNull Callback<T> callback) {
+            T view = poll(factory);
+            if (view != null) callback.onInflated(view);
+            else inflateAsync(context, factory, callback);
+        }
+
+        /**
+         * Gives a widget back to the pool, it must not be attached to any parent
+         * @param view Widget
+         * @param factory Factory which created it
+         */
+        public void release(@NonNull View view, @NonNull Factory<?> factory) {
+            synchronized (views) {
+                ArrayDeque<View> pooled = views.get(factory);
+                if (pooled == null) {
+                    pooled = new ArrayDeque<>();
+                    views.put(factory, pooled);
+                }
+                if (pooled.size() < maxSize) pooled.add(view);
+            }
+        }
+
+        /**
+         * Number of widgets of a type in the pool
+         * @param factory Widget factory
+         * @return Number of widgets
+         */
+        public int size(@NonNull Factory<?> factory) {
+            synchronized (views) {
+                ArrayDeque<View> pooled = views.get(factory);
+                return pooled != null ? pooled.size() : 0;
+            }
+        }
+
+        /**
+         * Drops every widget in the pool
+         */
+        public void clear() {
+            synchronized (views) {
+                views.clear();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends View> T poll(Factory<T> factory) {
+            synchronized (views) {
+                ArrayDeque<View> pooled = views.get(factory);
+                return pooled != null ? (T) pooled.poll() : null;
+            }
+        }
+    }
+}
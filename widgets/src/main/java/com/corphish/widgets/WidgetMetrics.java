@@ -0,0 +1,253 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.os.TraceCompat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt in timing of the work done by the widgets
+ * When enabled, every phase is wrapped in a trace section, visible in systrace as
+ * for example KeyValueView.measure, and its duration is recorded in a histogram
+ * and passed to the listener, if any. When disabled, which is the default,
+ * the widgets only check a flag.
+ */
+
+public final class WidgetMetrics {
+    // Widgets
+    public static final int KEY_VALUE_VIEW = 0;
+    public static final int FLAT_KEY_VALUE_VIEW = 1;
+    public static final int PLACEHOLDER_VIEW = 2;
+    public static final int KEY_VALUE_GROUP_VIEW = 3;
+
+    // Phases
+    /**
+     * Creating the children, or for the views drawing themselves, what they draw with
+     */
+    public static final int INFLATE = 0;
+    /**
+     * Processing the attributes set in layout
+     */
+    public static final int ATTRIBUTES = 1;
+    /**
+     * Resolving and executing the method set in app:methodForValue
+     * Only methods executed while inflating are timed, the ones executed in background with
+     * app:methodForValueAsync are not, as the view does not wait for them.
+     */
+    public static final int METHOD_FOR_VALUE = 2;
+    public static final int MEASURE = 3;
+    public static final int LAYOUT = 4;
+    public static final int DRAW = 5;
+
+    private static final String[] WIDGET_NAMES = {"KeyValueView", "FlatKeyValueView", "PlaceholderView", "KeyValueGroupView"};
+    private static final String[] PHASE_NAMES = {"inflate", "attributes", "methodForValue", "measure", "layout", "draw"};
+
+    static final int WIDGET_COUNT = WIDGET_NAMES.length;
+
+    // Returned by begin() when disabled
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    // Built once, so that tracing does not allocate
+    private static final String[][] SECTIONS = new String[WIDGET_NAMES.length][PHASE_NAMES.length];
+    private static final Histogram[][] HISTOGRAMS = new Histogram[WIDGET_NAMES.length][PHASE_NAMES.length];
+
+    static {
+        for (int widget = 0; widget < WIDGET_NAMES.length; widget++) {
+            for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                SECTIONS[widget][phase] = WIDGET_NAMES[widget] + "." + PHASE_NAMES[phase];
+                HISTOGRAMS[widget][phase] = new Histogram();
+            }
+        }
+    }
+
+    private static volatile boolean enabled = false;
+    private static volatile WidgetMetricsListener listener;
+
+    private WidgetMetrics() {
+    }
+
+    /**
+     * Histogram of the durations of a phase
+     * Durations are counted in buckets of powers of two nanoseconds, bucket n holding
+     * the durations from 2^n up to 2^(n+1) nanoseconds. Recording is lock free.
+     */
+    public static final class Histogram {
+        public static final int BUCKET_COUNT = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong count = new AtomicLong(), totalNanos = new AtomicLong();
+
+        void record(long durationNanos) {
+            if (durationNanos < 1) durationNanos = 1;
+
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(durationNanos));
+            count.incrementAndGet();
+            totalNanos.addAndGet(durationNanos);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) buckets.set(i, 0);
+            count.set(0);
+            totalNanos.set(0);
+        }
+
+        /**
+         * Number of durations recorded
+         * @return Count
+         */
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * Sum of the durations recorded
+         * @return Total in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        /**
+         * Average of the durations recorded
+         * @return Average in nanoseconds, 0 if nothing is recorded
+         */
+        public long getAverageNanos() {
+            long count = getCount();
+            return count == 0 ? 0 : getTotalNanos() / count;
+        }
+
+        /**
+         * Number of durations recorded in a bucket
+         * @param bucket Bucket, from 0 to BUCKET_COUNT - 1
+         * @return Count
+         */
+        public long getBucketCount(int bucket) {
+            return buckets.get(bucket);
+        }
+
+        /**
+         * Upper bound of the duration below which the given share of the durations fall
+         * @param percentile Percentile, from 0 to 100
+         * @return Upper bound of the bucket the percentile falls in, in nanoseconds, 0 if nothing is recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            long count = getCount();
+            if (count == 0) return 0;
+
+            long target = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) return i == 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Enables or disables the timing
+     * @param enable True to enable
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Whether the timing is enabled
+     * @return True if it is
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the listener receiving every timing, timing has to be enabled as well
+     * @param metricsListener Listener, null to only keep the histograms
+     */
+    public static void setListener(@Nullable WidgetMetricsListener metricsListener) {
+        listener = metricsListener;
+    }
+
+    /**
+     * Histogram of a phase of a widget
+     * @param widget Widget
+     * @param phase Phase
+     * @return Histogram
+     */
+    @NonNull
+    public static Histogram getHistogram(int widget, int phase) {
+        return HISTOGRAMS[widget][phase];
+    }
+
+    /**
+     * Name of a phase of a widget, same as its trace section
+     * @param widget Widget
+     * @param phase Phase
+     * @return Name, like KeyValueView.measure
+     */
+    @NonNull
+    public static String getName(int widget, int phase) {
+        return SECTIONS[widget][phase];
+    }
+
+    /**
+     * Clears all the histograms
+     */
+    public static void reset() {
+        for (Histogram[] histograms : HISTOGRAMS) {
+            for (Histogram histogram : histograms) histogram.reset();
+        }
+    }
+
+    /**
+     * Starts timing a phase
+     * @param widget Widget
+     * @param phase Phase
+     * @return Token to pass to end()
+     */
+    static long begin(int widget, int phase) {
+        if (!enabled) return NOT_STARTED;
+
+        TraceCompat.beginSection(SECTIONS[widget][phase]);
+        return System.nanoTime();
+    }
+
+    /**
+     * Finishes timing a phase
+     * @param widget Widget
+     * @param phase Phase
+     * @param start Token returned by begin()
+     */
+    static void end(int widget, int phase, long start) {
+        if (start == NOT_STARTED) return;
+
+        long duration = System.nanoTime() - start;
+        TraceCompat.endSection();
+
+        HISTOGRAMS[widget][phase].record(duration);
+
+        WidgetMetricsListener metricsListener = listener;
+        if (metricsListener != null) metricsListener.onPhaseTimed(widget, phase, duration);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+/**
+ * Receives the timings measured by WidgetMetrics
+ * It is called synchronously on the thread doing the work, mostly the main thread,
+ * so it should only record the timing and return.
+ */
+
+public interface WidgetMetricsListener {
+    /**
+     * Called every time a phase of a widget finishes
+     * @param widget Widget, one of WidgetMetrics.KEY_VALUE_VIEW, FLAT_KEY_VALUE_VIEW, PLACEHOLDER_VIEW or KEY_VALUE_GROUP_VIEW
+     * @param phase Phase, one of WidgetMetrics.INFLATE, ATTRIBUTES, METHOD_FOR_VALUE, MEASURE, LAYOUT or DRAW
+     * @param durationNanos Time the phase took, in nanoseconds
+     */
+    void onPhaseTimed(int widget, int phase, long durationNanos);
+}
@@ -0,0 +1,429 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.support.v4.content.ContextCompat;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.util.TypedValue;
+
+import java.util.List;
+
+/**
+ * Draws the content of the widgets without any view, into a Bitmap or Canvas given by the caller
+ * Use it for share images, home screen widgets and the like, where attaching a view is not an option.
+ * Key value rows are drawn the same way KeyValueGroupView draws them, placeholders the same way
+ * PlaceholderView shows a state.
+ * Paints and text layouts are kept across calls, so drawing a batch of snapshots only lays out
+ * the texts it has not seen yet. Layouts are not shared with the views, as drawing changes the color of their paint.
+ * A renderer can be used from any thread, but from one thread at a time. Use a renderer per thread
+ * to draw on several threads at once.
+ */
+
+public final class WidgetSnapshotRenderer {
+    // Layouts kept per text part
+    private static final int MAX_LAYOUTS = 64;
+
+    private static final int[] NO_STATE = {};
+
+    private final Context context;
+
+    // Paints of the key value rows, same defaults as KeyValueGroupView
+    private final TextPaint keyPaint = TextLayouts.newPaint(), valuePaint = TextLayouts.newPaint();
+    private final Paint backgroundPaint = new Paint();
+    private ColorStateList keyColors, valueColors;
+    private int keyBackgroundColor = Color.TRANSPARENT, valueBackgroundColor = Color.TRANSPARENT;
+    private final Rect keyPadding = new Rect(), valuePadding = new Rect();
+
+    // Paints of the placeholders, same defaults as PlaceholderView
+    private final TextPaint titlePaint = TextLayouts.newPaint(), descriptionPaint = TextLayouts.newPaint();
+    private final Rect noPadding = new Rect();
+    private int placeholderTint;
+    private int imageWidth = 0, imageHeight = 0;
+
+    // Layouts by width and text
+    private final LruCache<String, StaticLayout> keyLayouts = new LruCache<>(MAX_LAYOUTS);
+    private final LruCache<String, StaticLayout> valueLayouts = new LruCache<>(MAX_LAYOUTS);
+    private final LruCache<String, StaticLayout> titleLayouts = new LruCache<>(MAX_LAYOUTS);
+    private final LruCache<String, StaticLayout> descriptionLayouts = new LruCache<>(MAX_LAYOUTS);
+
+    // Reused to draw into bitmaps
+    private final Canvas bitmapCanvas = new Canvas();
+
+    // To handle sizes
+    private final float dpi;
+
+    /**
+     * Constructor
+     * @param context Context, used for resources only, the application context is kept
+     */
+    public WidgetSnapshotRenderer(@NonNull Context context) {
+        Context applicationContext = context.getApplicationContext();
+        this.context = applicationContext != null ? applicationContext : context;
+
+        dpi = (float) Resources.getSystem().getDisplayMetrics().densityDpi/(float) DisplayMetrics.DENSITY_DEFAULT;
+
+        Resources resources = context.getResources();
+        int spacing = resources.getDimensionPixelSize(R.dimen.spacing);
+        keyPadding.set(spacing, spacing, spacing, spacing);
+        valuePadding.set(spacing, spacing, spacing, spacing);
+
+        keyColors = TextLayouts.applyTextAppearance(context, keyPaint, android.R.attr.textAppearance);
+        valueColors = TextLayouts.applyTextAppearance(context, valuePaint, android.R.attr.textAppearanceSmall);
+        keyPaint.setTextSize(resources.getDimension(R.dimen.keySize));
+        valuePaint.setTextSize(resources.getDimension(R.dimen.valueSize));
+
+        titlePaint.setTextSize(resources.getDimension(R.dimen.titleSize));
+        descriptionPaint.setTextSize(resources.getDimension(R.dimen.descSize));
+        placeholderTint = ContextCompat.getColor(context, R.color.placeholder_tint);
+    }
+
+    /**
+     * Measures the height the rows need
+     * @param items Rows
+     * @param width Width to draw in
+     * @return Height in pixels
+     */
+    public int measureKeyValues(@NonNull List<KeyValueItem> items, int width) {
+        int height = 0;
+        for (KeyValueItem item : items) {
+            height += keyPadding.top + keyLayout(item.getKey(), width).getHeight() + keyPadding.bottom
+                    + valuePadding.top + valueLayout(item.getValue(), width).getHeight() + valuePadding.bottom;
+        }
+
+        return height;
+    }
+
+    /**
+     * Draws the rows at the origin of the canvas, one below the other
+     * @param canvas Canvas
+     * @param items Rows
+     * @param width Width to draw in
+     * @return Height drawn in pixels
+     */
+    public int drawKeyValues(@NonNull Canvas canvas, @NonNull List<KeyValueItem> items, int width) {
+        TextLayouts.applyColor(keyPaint, keyColors, true, NO_STATE);
+        TextLayouts.applyColor(valuePaint, valueColors, true, NO_STATE);
+
+        int top = 0;
+        for (KeyValueItem item : items) {
+            top = TextLayouts.draw(canvas, keyLayout(item.getKey(), width), keyPaint,
+                    backgroundPaint, keyBackgroundColor, keyPadding, 0, top);
+            top = TextLayouts.draw(canvas, valueLayout(item.getValue(), width), valuePaint,
+                    backgroundPaint, valueBackgroundColor, valuePadding, 0, top);
+        }
+
+        return top;
+    }
+
+    /**
+     * Draws the rows at the top of the bitmap, using its whole width
+     * Whatever does not fit in the bitmap is cut off, use measureKeyValues() to size it
+     * @param bitmap Mutable bitmap
+     * @param items Rows
+     * @return Height drawn in pixels
+     */
+    public int drawKeyValues(@NonNull Bitmap bitmap, @NonNull List<KeyValueItem> items) {
+        bitmapCanvas.setBitmap(bitmap);
+        try {
+            return drawKeyValues(bitmapCanvas, items, bitmap.getWidth());
+        } finally {
+            bitmapCanvas.setBitmap(null);
+        }
+    }
+
+    /**
+     * Draws a placeholder, centered in the given size at the origin of the canvas
+     * Properties the state does not set are drawn with the defaults of PlaceholderView
+     * @param canvas Canvas
+     * @param state Content of the placeholder
+     * @param width Width to draw in
+     * @param height Height to draw in
+     */
+    public void drawPlaceholder(@NonNull Canvas canvas, @NonNull PlaceholderView.State state, int width, int height) {
+        int tint = state.getViewTint() != null ? state.getViewTint() : placeholderTint;
+        int imageResourceId = state.getImageResourceId() != 0 ? state.getImageResourceId() : R.drawable.ic_sentiment_neutral_black_64dp;
+        CharSequence title = state.getTitle() != null ? state.getTitle() : context.getText(R.string.placeholder_title);
+        CharSequence description = state.getDescription() != null ? state.getDescription() : context.getText(R.string.placeholder_desc);
+
+        // Each call gets its own drawable, sharing only the bitmap with other callers
+        Drawable image = DrawableCache.get(context, imageResourceId, tint, imageWidth, imageHeight);
+        StaticLayout titleLayout = obtain(titleLayouts, title, titlePaint, width, Layout.Alignment.ALIGN_CENTER);
+        StaticLayout descriptionLayout = obtain(descriptionLayouts, description, descriptionPaint, width, Layout.Alignment.ALIGN_CENTER);
+
+        // DrawableCache already fitted the image in the image size, keeping its aspect ratio,
+        // only drawables without a size of their own, like colors, are given the whole image size
+        int drawableWidth = image != null ? (image.getIntrinsicWidth() > 0 ? image.getIntrinsicWidth() : imageWidth) : 0;
+        int drawableHeight = image != null ? (image.getIntrinsicHeight() > 0 ? image.getIntrinsicHeight() : imageHeight) : 0;
+        int contentHeight = drawableHeight + titleLayout.getHeight() + descriptionLayout.getHeight();
+        int top = Math.max((height - contentHeight) / 2, 0);
+
+        if (image != null) {
+            int left = (width - drawableWidth) / 2;
+            image.setBounds(left, top, left + drawableWidth, top + drawableHeight);
+            image.draw(canvas);
+            top += drawableHeight;
+        }
+
+        titlePaint.setColor(tint);
+        descriptionPaint.setColor(tint);
+        top = TextLayouts.draw(canvas, titleLayout, titlePaint, backgroundPaint, Color.TRANSPARENT, noPadding, 0, top);
+        TextLayouts.draw(canvas, descriptionLayout, descriptionPaint, backgroundPaint, Color.TRANSPARENT, noPadding, 0, top);
+    }
+
+    /**
+     * Draws a placeholder, centered in the bitmap
+     * @param bitmap Mutable bitmap
+     * @param state Content of the placeholder
+     */
+    public void drawPlaceholder(@NonNull Bitmap bitmap, @NonNull PlaceholderView.State state) {
+        bitmapCanvas.setBitmap(bitmap);
+        try {
+            drawPlaceholder(bitmapCanvas, state, bitmap.getWidth(), bitmap.getHeight());
+        } finally {
+            bitmapCanvas.setBitmap(null);
+        }
+    }
+
+    private StaticLayout keyLayout(@NonNull String key, int width) {
+        return obtain(keyLayouts, key, keyPaint, width - keyPadding.left - keyPadding.right, Layout.Alignment.ALIGN_NORMAL);
+    }
+
+    private StaticLayout valueLayout(@NonNull String value, int width) {
+        return obtain(valueLayouts, value, valuePaint, width - valuePadding.left - valuePadding.right, Layout.Alignment.ALIGN_NORMAL);
+    }
+
+    /**
+     * Gets the layout of the text from the cache, building it if it is not there
+     * Styled texts are always built, their spans are not part of the key
+     */
+    private static StaticLayout obtain(LruCache<String, StaticLayout> cache, CharSequence text, TextPaint paint,
+                                       int width, Layout.Alignment alignment) {
+        width = Math.max(width, 0);
+        if (text instanceof Spanned) return TextLayouts.build(text, paint, width, alignment);
+
+        String key = width + "|" + text;
+        StaticLayout layout = cache.get(key);
+        if (layout == null) {
+            layout = TextLayouts.build(text, paint, width, alignment);
+            cache.put(key, layout);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Applies a KeyValueStyle to the rows
+     * @param style Style
+     */
+    public void setKeyValueStyle(@NonNull KeyValueStyle style) {
+        style.apply(this);
+    }
+
+    /**
+     * Sets Key size
+     * @param size Size
+     */
+    public void setKeySize(float size) {
+        keyPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, context.getResources().getDisplayMetrics()));
+        keyLayouts.evictAll();
+    }
+
+    /**
+     * Sets Value size
+     * @param size Size
+     */
+    public void setValueSize(float size) {
+        valuePaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, context.getResources().getDisplayMetrics()));
+        valueLayouts.evictAll();
+    }
+
+    /**
+     * Sets typeface for the keys
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setKeyTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(keyPaint, typeface, style);
+        keyLayouts.evictAll();
+    }
+
+    /**
+     * Sets typeface for the values
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setValueTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(valuePaint, typeface, style);
+        valueLayouts.evictAll();
+    }
+
+    /**
+     * Gets typeface of the keys
+     * @return Key typeface
+     */
+    public Typeface getKeyTypeface() {
+        return keyPaint.getTypeface();
+    }
+
+    /**
+     * Gets typeface of the values
+     * @return Value typeface
+     */
+    public Typeface getValueTypeface() {
+        return valuePaint.getTypeface();
+    }
+
+    /**
+     * Sets text color of the keys
+     * @param color Color to set
+     */
+    public void setKeyTextColor(@ColorInt int color) {
+        keyColors = ColorStateList.valueOf(color);
+    }
+
+    /**
+     * Sets text color of the values
+     * @param color Color to set
+     */
+    public void setValueTextColor(@ColorInt int color) {
+        valueColors = ColorStateList.valueOf(color);
+    }
+
+    /**
+     * Sets background color of the keys
+     * @param color Color to set
+     */
+    public void setKeyBackgroundColor(@ColorInt int color) {
+        keyBackgroundColor = color;
+    }
+
+    /**
+     * Sets background color of the values
+     * @param color Color to set
+     */
+    public void setValueBackgroundColor(@ColorInt int color) {
+        valueBackgroundColor = color;
+    }
+
+    /**
+     * Sets absolute vertical spacing in between the Key and Value of each row
+     * @param spacingBelowKey Spacing below key in dp
+     * @param spacingAboveValue Spacing above value in dp
+     */
+    public void setAbsoluteSpacing(int spacingBelowKey, int spacingAboveValue) {
+        keyPadding.bottom = spacingBelowKey;
+        valuePadding.top = spacingAboveValue;
+    }
+
+    /**
+     * Sets text appearance of the keys
+     * @param appearance Appearance
+     */
+    public void setKeyTextAppearance(@StyleRes int appearance) {
+        ColorStateList colors = TextLayouts.applyTextAppearance(context, keyPaint, appearance);
+        if (colors != null) keyColors = colors;
+        keyLayouts.evictAll();
+    }
+
+    /**
+     * Sets text appearance of the values
+     * @param appearance Appearance
+     */
+    public void setValueTextAppearance(@StyleRes int appearance) {
+        ColorStateList colors = TextLayouts.applyTextAppearance(context, valuePaint, appearance);
+        if (colors != null) valueColors = colors;
+        valueLayouts.evictAll();
+    }
+
+    /**
+     * Sets Title size of the placeholders
+     * @param size Size
+     */
+    public void setTitleSize(float size) {
+        titlePaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, context.getResources().getDisplayMetrics()));
+        titleLayouts.evictAll();
+    }
+
+    /**
+     * Sets Description size of the placeholders
+     * @param size Size
+     */
+    public void setDescriptionSize(float size) {
+        descriptionPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size/dpi, context.getResources().getDisplayMetrics()));
+        descriptionLayouts.evictAll();
+    }
+
+    /**
+     * Sets typeface for the titles of the placeholders
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setTitleTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(titlePaint, typeface, style);
+        titleLayouts.evictAll();
+    }
+
+    /**
+     * Sets typeface for the descriptions of the placeholders
+     * @param typeface Typeface
+     * @param style Text Style
+     */
+    public void setDescriptionTypeface(@Nullable Typeface typeface, int style) {
+        TextLayouts.applyTypeface(descriptionPaint, typeface, style);
+        descriptionLayouts.evictAll();
+    }
+
+    /**
+     * Sets the tint of the placeholders whose state does not set one
+     * @param color Tint color
+     */
+    public void setViewTint(@ColorInt int color) {
+        placeholderTint = color;
+    }
+
+    /**
+     * Sets the size of the placeholder images, they are scaled keeping their aspect ratio
+     * @param width Width in pixels, 0 for the size of the image
+     * @param height Height in pixels, 0 for the size of the image
+     */
+    public void setImageSize(int width, int height) {
+        imageWidth = width;
+        imageHeight = height;
+    }
+}
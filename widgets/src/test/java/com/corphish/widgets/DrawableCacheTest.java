@@ -0,0 +1,149 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.view.ContextThemeWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks what DrawableCache shares, and how it is bounded and trimmed
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class DrawableCacheTest {
+    private static final int IMAGE = R.drawable.ic_audiotrack_black_24dp;
+
+    private Context context;
+    // Bytes of the image rasterized at its intrinsic size
+    private int imageBytes;
+
+    @Before
+    public void setUp() {
+        context = themed();
+        DrawableCache.setMaxSize(8 * 1024 * 1024);
+        DrawableCache.clear();
+
+        DrawableCache.get(context, IMAGE);
+        imageBytes = DrawableCache.size();
+        DrawableCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        DrawableCache.setMaxSize(8 * 1024 * 1024);
+    }
+
+    private static Context themed() {
+        return new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+    }
+
+    @Test
+    public void sharesBitmapOfSameKey() {
+        Drawable first = DrawableCache.get(context, IMAGE, Color.RED, 48, 48);
+        Drawable second = DrawableCache.get(context, IMAGE, Color.RED, 48, 48);
+
+        // Each caller gets a drawable of its own, sharing the bitmap
+        assertNotSame(first, second);
+        assertSame(first.getConstantState(), second.getConstantState());
+        assertEquals(1, DrawableCache.getMissCount());
+        assertEquals(1, DrawableCache.getHitCount());
+    }
+
+    @Test
+    public void keysByTintSizeAndTheme() {
+        DrawableCache.get(context, IMAGE, Color.RED, 48, 48);
+        DrawableCache.get(context, IMAGE, Color.BLUE, 48, 48);
+        DrawableCache.get(context, IMAGE, Color.RED, 96, 96);
+        DrawableCache.get(themed(), IMAGE, Color.RED, 48, 48);
+
+        assertEquals(4, DrawableCache.getMissCount());
+        assertEquals(0, DrawableCache.getHitCount());
+    }
+
+    @Test
+    public void fitsSizeKeepingAspectRatio() {
+        Drawable drawable = DrawableCache.get(context, IMAGE, DrawableCache.NO_TINT, 96, 48);
+
+        assertEquals(48, drawable.getIntrinsicWidth());
+        assertEquals(48, drawable.getIntrinsicHeight());
+    }
+
+    @Test
+    public void boundsBytes() {
+        DrawableCache.setMaxSize(imageBytes + imageBytes / 2);
+        DrawableCache.get(context, IMAGE, Color.RED, 0, 0);
+        DrawableCache.get(context, IMAGE, Color.BLUE, 0, 0);
+        assertEquals(imageBytes, DrawableCache.size());
+
+        // The red one was evicted for the blue one
+        DrawableCache.get(context, IMAGE, Color.BLUE, 0, 0);
+        DrawableCache.get(context, IMAGE, Color.RED, 0, 0);
+        assertEquals(1, DrawableCache.getHitCount());
+        assertEquals(3, DrawableCache.getMissCount());
+    }
+
+    @Test
+    public void trimsAsAsked() {
+        DrawableCache.setMaxSize(imageBytes * 3);
+        DrawableCache.get(context, IMAGE, Color.RED, 0, 0);
+        DrawableCache.get(context, IMAGE, Color.BLUE, 0, 0);
+
+        DrawableCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(imageBytes * 2, DrawableCache.size());
+
+        DrawableCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(imageBytes, DrawableCache.size());
+
+        DrawableCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertEquals(0, DrawableCache.size());
+    }
+
+    @Test
+    public void doesNotRasterizeStatefulOrAnimatedDrawables() {
+        DrawableCache.get(context, android.R.drawable.btn_default);
+        DrawableCache.get(context, android.R.drawable.btn_default);
+        DrawableCache.get(context, android.R.drawable.stat_sys_download);
+
+        assertEquals(0, DrawableCache.size());
+        assertEquals(0, DrawableCache.getHitCount());
+        assertEquals(3, DrawableCache.getMissCount());
+    }
+
+    @Test
+    public void returnsNullForNoResource() {
+        assertNull(DrawableCache.get(context, 0));
+        assertEquals(0, DrawableCache.getMissCount());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import com.corphish.widgets.annotations.KeyValueBinder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that KeyValueBinding shows the rows of a model and rebinds only the rows which changed
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class KeyValueBindingTest {
+    private static class Product {
+        String name, price;
+
+        Product(String name, String price) {
+            this.name = name;
+            this.price = price;
+        }
+    }
+
+    /**
+     * Binder like the one generated for Product, with the name labelled by a string resource
+     */
+    private static class ProductBinder implements KeyValueBinder<Product> {
+        @Override
+        public int getRowCount() {
+            return 2;
+        }
+
+        @Override
+        public int getLabel(int row) {
+            return row == 0 ? android.R.string.ok : 0;
+        }
+
+        @Override
+        public String getKey(int row) {
+            return row == 0 ? "Name" : "Price";
+        }
+
+        @Override
+        public String getValue(Product model, int row) {
+            return row == 0 ? model.name : model.price;
+        }
+    }
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+    }
+
+    @Test
+    public void readsItems() {
+        List<KeyValueItem> items = KeyValueBinding.toItems(context, new ProductBinder(), new Product("Pen", null));
+
+        assertEquals(new KeyValueItem(context.getString(android.R.string.ok), "Pen"), items.get(0));
+        assertEquals(new KeyValueItem("Price", ""), items.get(1));
+    }
+
+    @Test
+    public void keepsEmptyValues() {
+        List<KeyValueItem> items = KeyValueBinding.toItems(context, new ProductBinder(), new Product("", " "));
+
+        assertEquals("", items.get(0).getValue());
+        assertEquals(" ", items.get(1).getValue());
+    }
+
+    @Test
+    public void rebindsChangedViews() {
+        KeyValueView name = new KeyValueView(context), price = new KeyValueView(context);
+        KeyValueBinding<Product> binding = new KeyValueBinding<>(new ProductBinder(), name, price);
+
+        binding.bind(new Product("Pen", null));
+        assertEquals(context.getString(android.R.string.ok), name.getKeyTextView().getText().toString());
+        assertEquals("Price", price.getKeyTextView().getText().toString());
+        assertEquals("", price.getValueTextView().getText().toString());
+
+        // Rows whose values are the same are not set again, so what was set meanwhile stays
+        price.setValueText("set elsewhere");
+        binding.bind(new Product("Pencil", null));
+        assertEquals("Pencil", name.getValueTextView().getText().toString());
+        assertEquals("set elsewhere", price.getValueTextView().getText().toString());
+
+        binding.reset();
+        binding.bind(new Product("Pencil", null));
+        assertEquals("", price.getValueTextView().getText().toString());
+    }
+
+    @Test
+    public void rebindsChangedRows() {
+        KeyValueGroupView groupView = new KeyValueGroupView(context);
+        KeyValueBinding<Product> binding = new KeyValueBinding<>(new ProductBinder(), groupView);
+
+        binding.bind(new Product("Pen", "$1"));
+        assertEquals(2, groupView.getItemCount());
+        assertEquals(new KeyValueItem("Price", "$1"), groupView.getItem(1));
+
+        groupView.setValue(1, "set elsewhere");
+        binding.bind(new Product("Pencil", "$1"));
+        assertEquals("Pencil", groupView.getItem(0).getValue());
+        assertEquals("set elsewhere", groupView.getItem(1).getValue());
+
+        binding.reset();
+        binding.bind(new Product("Pencil", "$1"));
+        assertEquals("$1", groupView.getItem(1).getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresViewPerRow() {
+        new KeyValueBinding<>(new ProductBinder(), new KeyValueView(context));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.view.ContextThemeWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a style read from attributes looks like a view inflated with them
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class KeyValueStyleTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+    }
+
+    @Test
+    public void resolvesRelativeSpacing() {
+        assertSpacingLikeView(R.attr.relativeSpacing);
+    }
+
+    @Test
+    public void resolvesRelativeSpacingTop() {
+        assertSpacingLikeView(R.attr.relativeSpacingTop);
+    }
+
+    @Test
+    public void resolvesRelativeSpacingBottom() {
+        assertSpacingLikeView(R.attr.relativeSpacingBottom);
+    }
+
+    private void assertSpacingLikeView(int attribute) {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(attribute, "4px")
+                .build();
+        KeyValueView inflated = new KeyValueView(context, attrs);
+
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.KeyValueView);
+        KeyValueStyle style = KeyValueStyle.fromAttributes(context, typedArray);
+        typedArray.recycle();
+
+        KeyValueView styled = new KeyValueView(context);
+        style.apply(styled);
+
+        assertEquals(inflated.getKeyTextView().getPaddingBottom(), styled.getKeyTextView().getPaddingBottom());
+        assertEquals(inflated.getValueTextView().getPaddingTop(), styled.getValueTextView().getPaddingTop());
+    }
+}
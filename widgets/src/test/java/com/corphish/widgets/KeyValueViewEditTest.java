@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.view.ContextThemeWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that batched edits of KeyValueView are applied whatever was set outside the batch
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class KeyValueViewEditTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+    }
+
+    @Test
+    public void clearsRelativeDrawables() {
+        KeyValueView keyValueView = new KeyValueView(context);
+        keyValueView.setKeyRelativeDrawables(android.R.drawable.ic_dialog_info, 0, android.R.drawable.ic_dialog_info, 0);
+        keyValueView.setValueRelativeDrawables(android.R.drawable.ic_dialog_info, 0, 0, 0);
+        assertNotNull(keyValueView.getKeyTextView().getCompoundDrawablesRelative()[0]);
+        assertNotNull(keyValueView.getValueTextView().getCompoundDrawablesRelative()[0]);
+
+        keyValueView.edit()
+                .setKeyDrawables(0, 0, 0, 0)
+                .setValueDrawables(0, 0, 0, 0)
+                .apply();
+
+        for (Drawable drawable : keyValueView.getKeyTextView().getCompoundDrawablesRelative()) assertNull(drawable);
+        for (Drawable drawable : keyValueView.getValueTextView().getCompoundDrawablesRelative()) assertNull(drawable);
+    }
+
+    @Test
+    public void setsPostedValue() {
+        KeyValueView keyValueView = new KeyValueView(context);
+        keyValueView.setValueText("committed");
+        keyValueView.postValue("posted");
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals("posted", keyValueView.getValueTextView().getText().toString());
+    }
+
+    @Test
+    public void sameValueDropsPostedValue() {
+        KeyValueView keyValueView = new KeyValueView(context);
+        keyValueView.setValueText("committed");
+        keyValueView.postValue("posted");
+
+        // Nothing changes on screen, but the value committed must still win over the posted one
+        keyValueView.edit().setValueText("committed").apply();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals("committed", keyValueView.getValueTextView().getText().toString());
+    }
+}
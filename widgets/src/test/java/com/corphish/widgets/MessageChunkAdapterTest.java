@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of splitting large messages in chunks
+ */
+
+public class MessageChunkAdapterTest {
+    @Test
+    public void splitsParagraphs() {
+        assertEquals(Arrays.asList("First", "Second", "", "Third"),
+                MessageChunkAdapter.split("First\nSecond\n\nThird", 1024));
+    }
+
+    @Test
+    public void keepsShortParagraphsWhole() {
+        assertEquals(Arrays.asList("One two three", "four"), MessageChunkAdapter.split("One two three\nfour", 13));
+    }
+
+    @Test
+    public void splitsLongParagraphsAtSpaces() {
+        assertEquals(Arrays.asList("aaa bbb ", "ccc", "d"), MessageChunkAdapter.split("aaa bbb ccc\nd", 9));
+    }
+
+    @Test
+    public void splitsLongWordsAtLimit() {
+        assertEquals(Arrays.asList("abcd", "efgh", "ij"), MessageChunkAdapter.split("abcdefghij", 4));
+    }
+
+    @Test
+    public void keepsSurrogatePairs() {
+        String emoji = new String(Character.toChars(0x1F600));
+        String text = "abc" + emoji + "def";
+        List<String> chunks = MessageChunkAdapter.split(text, 4);
+
+        StringBuilder joined = new StringBuilder();
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 4);
+            assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+            joined.append(chunk);
+        }
+        assertEquals(text, joined.toString());
+        assertEquals(Arrays.asList("abc", emoji + "de", "f"), chunks);
+    }
+
+    @Test
+    public void keepsEmptyText() {
+        assertEquals(Arrays.asList(""), MessageChunkAdapter.split("", 1024));
+    }
+}
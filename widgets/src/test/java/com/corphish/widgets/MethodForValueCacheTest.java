@@ -0,0 +1,302 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks how MethodForValueCache resolves methods and executes them
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class MethodForValueCacheTest {
+    private static final String STATIC_METHOD = MethodForValueCacheTest.class.getName() + ".staticValue";
+    private static final String MISSING_METHOD = MethodForValueCacheTest.class.getName() + ".missingValue";
+    private static final String BLOCKING_METHOD = MethodForValueCacheTest.class.getName() + ".blockingValue";
+    private static final String COUNTING_METHOD = MethodForValueCacheTest.class.getName() + ".countingValue";
+    private static final String BLOCKING_INSTANCE_METHOD = SourceContext.class.getName() + ".blockingInstanceValue";
+
+    // Blocking methods wait for it, so that requests made meanwhile find them executing
+    private static volatile CountDownLatch release;
+    private static final AtomicInteger invocations = new AtomicInteger();
+
+    /**
+     * Context with a method returning a value of its own
+     */
+    public static class SourceContext extends ContextWrapper {
+        private final String value;
+
+        SourceContext(Context base, String value) {
+            super(base);
+            this.value = value;
+        }
+
+        public String instanceValue() {
+            return value;
+        }
+
+        public String blockingInstanceValue() throws InterruptedException {
+            invocations.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return value;
+        }
+    }
+
+    /**
+     * Records the values a request is called back with
+     */
+    private static class Values implements MethodForValueCache.ValueCallback {
+        final List<String> values = new ArrayList<>();
+
+        @Override
+        public void onValue(String value) {
+            values.add(value);
+        }
+    }
+
+    public static String staticValue() {
+        return "static";
+    }
+
+    public static String blockingValue() throws InterruptedException {
+        invocations.incrementAndGet();
+        release.await(5, TimeUnit.SECONDS);
+        return "blocking";
+    }
+
+    public static String countingValue() {
+        return "count" + invocations.incrementAndGet();
+    }
+
+    private SourceContext context;
+
+    @Before
+    public void setUp() {
+        MethodForValueCache.setRegistry(null);
+        MethodForValueCache.clear();
+        context = new SourceContext(RuntimeEnvironment.application, "first");
+        release = new CountDownLatch(1);
+        invocations.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void resolvesOnce() {
+        MethodForValueCache.Invoker invoker = MethodForValueCache.resolve(null, STATIC_METHOD);
+        assertNotNull(invoker);
+        assertSame(invoker, MethodForValueCache.resolve(null, STATIC_METHOD));
+
+        assertEquals(1, MethodForValueCache.getMissCount());
+        assertEquals(1, MethodForValueCache.getHitCount());
+        assertEquals(1, MethodForValueCache.size());
+    }
+
+    @Test
+    public void remembersUnresolvedNames() {
+        assertNull(MethodForValueCache.resolve(null, MISSING_METHOD));
+        assertNull(MethodForValueCache.resolve(null, MISSING_METHOD));
+
+        assertEquals(1, MethodForValueCache.getMissCount());
+        assertEquals(1, MethodForValueCache.getHitCount());
+        assertEquals(1, MethodForValueCache.size());
+    }
+
+    @Test
+    public void qualifiesNamesWithContextClass() {
+        assertEquals("first", MethodForValueCache.invoke(context, "instanceValue"));
+        assertEquals("static", MethodForValueCache.invoke(context, STATIC_METHOD));
+        assertNull(MethodForValueCache.invoke(context, "missingValue"));
+    }
+
+    @Test
+    public void clearsCacheAndCounters() {
+        MethodForValueCache.resolve(null, STATIC_METHOD);
+        MethodForValueCache.resolve(null, STATIC_METHOD);
+        MethodForValueCache.clear();
+
+        assertEquals(0, MethodForValueCache.size());
+        assertEquals(0, MethodForValueCache.getHitCount());
+        assertEquals(0, MethodForValueCache.getMissCount());
+    }
+
+    @Test
+    public void sharesExecutionsOfStaticMethods() throws Exception {
+        Values first = new Values(), second = new Values();
+        MethodForValueCache.Request firstRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 0, 0, first);
+        MethodForValueCache.Request secondRequest = MethodForValueCache.invokeAsync(
+                new SourceContext(RuntimeEnvironment.application, "second"), BLOCKING_METHOD, 0, 0, second);
+
+        release.countDown();
+        awaitFinished(firstRequest, secondRequest);
+
+        assertEquals(1, invocations.get());
+        assertEquals(Collections.singletonList("blocking"), first.values);
+        assertEquals(Collections.singletonList("blocking"), second.values);
+    }
+
+    @Test
+    public void executesForEachContext() throws Exception {
+        Values first = new Values(), second = new Values(), again = new Values();
+        SourceContext secondContext = new SourceContext(RuntimeEnvironment.application, "second");
+        MethodForValueCache.Request firstRequest = MethodForValueCache.invokeAsync(context, BLOCKING_INSTANCE_METHOD, 0, 0, first);
+        MethodForValueCache.Request secondRequest = MethodForValueCache.invokeAsync(secondContext, BLOCKING_INSTANCE_METHOD, 0, 0, second);
+        MethodForValueCache.Request againRequest = MethodForValueCache.invokeAsync(context, BLOCKING_INSTANCE_METHOD, 0, 0, again);
+
+        release.countDown();
+        awaitFinished(firstRequest, secondRequest, againRequest);
+
+        // Requests of the same context still share the execution
+        assertEquals(2, invocations.get());
+        assertEquals(Collections.singletonList("first"), first.values);
+        assertEquals(Collections.singletonList("second"), second.values);
+        assertEquals(Collections.singletonList("first"), again.values);
+    }
+
+    @Test
+    public void sharesValueAcrossContextsWhileReused() throws Exception {
+        Values first = new Values(), second = new Values();
+        MethodForValueCache.Request firstRequest = MethodForValueCache.invokeAsync(context, BLOCKING_INSTANCE_METHOD, 0, 1000, first);
+        MethodForValueCache.Request secondRequest = MethodForValueCache.invokeAsync(
+                new SourceContext(RuntimeEnvironment.application, "second"), BLOCKING_INSTANCE_METHOD, 0, 1000, second);
+
+        release.countDown();
+        awaitFinished(firstRequest, secondRequest);
+
+        assertEquals(1, invocations.get());
+        assertEquals(Collections.singletonList("first"), second.values);
+    }
+
+    @Test
+    public void reusesValueUntilItExpires() throws Exception {
+        Values first = new Values();
+        awaitFinished(MethodForValueCache.invokeAsync(context, COUNTING_METHOD, 0, 1000, first));
+        assertEquals(Collections.singletonList("count1"), first.values);
+
+        // Reused values are delivered right away
+        Values reused = new Values();
+        assertTrue(MethodForValueCache.invokeAsync(context, COUNTING_METHOD, 0, 1000, reused).isFinished());
+        assertEquals(Collections.singletonList("count1"), reused.values);
+
+        ShadowLooper.idleMainLooper(1001, TimeUnit.MILLISECONDS);
+        Values expired = new Values();
+        awaitFinished(MethodForValueCache.invokeAsync(context, COUNTING_METHOD, 0, 1000, expired));
+        assertEquals(Collections.singletonList("count2"), expired.values);
+    }
+
+    @Test
+    public void timesOut() throws Exception {
+        Values timedOut = new Values(), waiting = new Values();
+        MethodForValueCache.Request timedOutRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 100, 0, timedOut);
+        MethodForValueCache.Request waitingRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 0, 0, waiting);
+
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        assertTrue(timedOutRequest.isFinished());
+        assertFalse(waitingRequest.isFinished());
+        assertEquals(Collections.singletonList((String) null), timedOut.values);
+
+        // The value arriving afterwards only goes to the request still waiting
+        release.countDown();
+        awaitFinished(waitingRequest);
+        assertEquals(Collections.singletonList((String) null), timedOut.values);
+        assertEquals(Collections.singletonList("blocking"), waiting.values);
+    }
+
+    @Test
+    public void doesNotCallCancelledRequestsBack() throws Exception {
+        Values cancelled = new Values(), waiting = new Values();
+        MethodForValueCache.Request cancelledRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 0, 0, cancelled);
+        MethodForValueCache.Request waitingRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 0, 0, waiting);
+        cancelledRequest.cancel();
+        assertTrue(cancelledRequest.isFinished());
+
+        release.countDown();
+        awaitFinished(waitingRequest);
+
+        assertEquals(Collections.<String>emptyList(), cancelled.values);
+        assertEquals(Collections.singletonList("blocking"), waiting.values);
+    }
+
+    @Test
+    public void clearDropsExecutions() throws Exception {
+        Values first = new Values(), second = new Values();
+        MethodForValueCache.Request firstRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 0, 0, first);
+        MethodForValueCache.clear();
+        MethodForValueCache.Request secondRequest = MethodForValueCache.invokeAsync(context, BLOCKING_METHOD, 0, 0, second);
+
+        release.countDown();
+        awaitFinished(firstRequest, secondRequest);
+
+        assertEquals(2, invocations.get());
+        assertEquals(Collections.singletonList("blocking"), second.values);
+    }
+
+    @Test
+    public void callsBackRightAwayIfUnresolved() {
+        Values values = new Values();
+
+        assertTrue(MethodForValueCache.invokeAsync(context, MISSING_METHOD, 0, 0, values).isFinished());
+        assertEquals(Collections.singletonList((String) null), values.values);
+    }
+
+    /**
+     * Runs the main thread until the requests are called back
+     */
+    private static void awaitFinished(MethodForValueCache.Request... requests) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            ShadowLooper.runUiThreadTasks();
+
+            boolean finished = true;
+            for (MethodForValueCache.Request request : requests) finished &= request.isFinished();
+            if (finished) return;
+
+            Thread.sleep(5);
+        }
+
+        fail("The requests were not called back");
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of formatting numbers into char buffers
+ */
+
+public class NumberCharsTest {
+    private static final String PATTERN = "#,##0.###";
+
+    private static String text(NumberChars numberChars) {
+        int length = numberChars.length();
+        return new String(numberChars.publish(), 0, length);
+    }
+
+    private static NumberChars usChars() {
+        NumberChars numberChars = new NumberChars();
+        numberChars.setSymbols(Locale.US, PATTERN);
+        return numberChars;
+    }
+
+    @Test
+    public void formatsLongs() {
+        NumberChars numberChars = usChars();
+
+        assertEquals("0", text(numberChars.format(0)));
+        assertEquals("-1,234", text(numberChars.format(-1234)));
+        assertEquals("-9,223,372,036,854,775,808", text(numberChars.format(Long.MIN_VALUE)));
+        assertEquals("9,223,372,036,854,775,807", text(numberChars.format(Long.MAX_VALUE)));
+
+        numberChars.setGrouping(false);
+        assertEquals("-9223372036854775808", text(numberChars.format(Long.MIN_VALUE)));
+    }
+
+    @Test
+    public void dropsSignOfNegativesRoundedToZero() {
+        NumberChars numberChars = usChars();
+
+        assertEquals("0.00", text(numberChars.format(-0.001, 2)));
+        assertEquals("0", text(numberChars.format(-0.4, 0)));
+        assertEquals("-0.01", text(numberChars.format(-0.005, 2)));
+    }
+
+    @Test
+    public void roundsHalfUpFromExactValue() {
+        NumberChars numberChars = usChars();
+
+        // 1.005 is stored as 1.00499..., 0.125 is exact
+        assertEquals("1.00", text(numberChars.format(1.005, 2)));
+        assertEquals("0.13", text(numberChars.format(0.125, 2)));
+        assertEquals("2.5", text(numberChars.format(2.45, 1)));
+    }
+
+    @Test
+    public void roundsTheSameAboveTheExactRange() {
+        NumberChars numberChars = usChars();
+        numberChars.setGrouping(false);
+
+        // Values scaled past 2^52 go through BigDecimal, the output must not change there
+        for (double value : new double[] {4.4, 4.503599627370495, 4.503599627370497, 9.995, 123.456}) {
+            assertEquals(new BigDecimal(value).setScale(15, RoundingMode.HALF_UP).toPlainString(),
+                    text(numberChars.format(value, 15)));
+        }
+
+        numberChars.setGrouping(true);
+        assertEquals("12,345,678,901,234,567,168.00", text(numberChars.format(12345678901234567890.0, 2)));
+    }
+
+    @Test
+    public void usesDigitsOfLocale() {
+        NumberChars numberChars = new NumberChars();
+        numberChars.setSymbols(Locale.forLanguageTag("th-TH-u-nu-thai"), PATTERN);
+
+        // Thai digits, zero is U+0E50
+        assertEquals("๑,๒๓๔.๕๐", text(numberChars.format(1234.5, 2)));
+    }
+
+    @Test
+    public void groupsLikeIndianLocales() {
+        NumberChars numberChars = new NumberChars();
+        numberChars.setSymbols(new Locale("en", "IN"), "#,##,##0.###");
+
+        assertEquals("12,34,567", text(numberChars.format(1234567)));
+        assertEquals("-1,23,45,67,890.50", text(numberChars.format(-1234567890.5, 2)));
+        assertEquals("999", text(numberChars.format(999)));
+        assertEquals("1,000", text(numberChars.format(1000)));
+    }
+}
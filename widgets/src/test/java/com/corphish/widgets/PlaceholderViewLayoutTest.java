@@ -0,0 +1,129 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that PlaceholderView lays out its content flat, measuring every child once per pass
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class PlaceholderViewLayoutTest {
+    /**
+     * Counts how many times it is measured
+     */
+    private static class CountingView extends View {
+        int measures = 0;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+        LayoutStats.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        LayoutStats.setEnabled(false);
+    }
+
+    @Test
+    public void childrenAreDirect() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+
+        assertEquals(3, placeholderView.getChildCount());
+        assertEquals(1, depth(placeholderView));
+        assertEquals(placeholderView, placeholderView.getImageView().getParent());
+        assertEquals(placeholderView, placeholderView.getTitleTextView().getParent());
+        assertEquals(placeholderView, placeholderView.getDescriptionTextView().getParent());
+    }
+
+    @Test
+    public void measuresChildrenOnce() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+        placeholderView.setTitle("Nothing here");
+        placeholderView.setDescription("Items you add will show up here");
+
+        CountingView countingView = new CountingView(context);
+        placeholderView.addView(countingView);
+
+        LayoutStats.reset();
+        placeholderView.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+
+        assertEquals(1, countingView.measures);
+        assertEquals(1, LayoutStats.getMeasureCount(WidgetMetrics.PLACEHOLDER_VIEW));
+    }
+
+    @Test
+    public void centersContent() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+
+        int width = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int height = View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY);
+        placeholderView.measure(width, height);
+        placeholderView.layout(0, 0, 1080, 1920);
+
+        View image = placeholderView.getImageView();
+        View description = placeholderView.getDescriptionTextView();
+        int contentHeight = description.getBottom() - image.getTop();
+
+        assertEquals((1080 - image.getWidth()) / 2, image.getLeft());
+        assertEquals((1920 - contentHeight) / 2, image.getTop());
+        assertTrue(placeholderView.getTitleTextView().getTop() >= image.getBottom());
+    }
+
+    private static int depth(View view) {
+        if (!(view instanceof ViewGroup)) return 0;
+
+        ViewGroup viewGroup = (ViewGroup) view;
+        int depth = 0;
+        for (int i = 0; i < viewGroup.getChildCount(); i++) depth = Math.max(depth, depth(viewGroup.getChildAt(i)));
+
+        return depth + 1;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.widget.ImageViewCompat;
+import android.view.ContextThemeWrapper;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the tint set on PlaceholderView is the one its image is shown with
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class PlaceholderViewTintTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light);
+        DrawableCache.clear();
+    }
+
+    @Test
+    public void tintsResourceImage() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+        placeholderView.setViewTint(Color.RED);
+        placeholderView.setImageResourceId(R.drawable.ic_audiotrack_black_24dp);
+
+        assertTinted(placeholderView, R.drawable.ic_audiotrack_black_24dp, Color.RED);
+    }
+
+    @Test
+    public void tintsImageOfState() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+        placeholderView.addState(new PlaceholderView.State.Builder("empty")
+                .setImageResourceId(R.drawable.ic_audiotrack_black_24dp)
+                .setViewTint(Color.BLUE)
+                .build());
+        placeholderView.setState("empty");
+
+        assertTinted(placeholderView, R.drawable.ic_audiotrack_black_24dp, Color.BLUE);
+    }
+
+    @Test
+    public void tintsDefaultImageWithDefaultTint() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+        placeholderView.setImageResourceId(R.drawable.ic_sentiment_neutral_black_64dp);
+
+        assertTinted(placeholderView, R.drawable.ic_sentiment_neutral_black_64dp,
+                ContextCompat.getColor(context, R.color.placeholder_tint));
+    }
+
+    @Test
+    public void tintsImageDrawable() {
+        PlaceholderView placeholderView = new PlaceholderView(context);
+        placeholderView.setImageResourceId(R.drawable.ic_audiotrack_black_24dp);
+        placeholderView.setViewTint(Color.GREEN);
+        placeholderView.setImageDrawable(new ColorDrawable(Color.WHITE));
+
+        assertEquals(new PorterDuffColorFilter(Color.GREEN, PorterDuff.Mode.SRC_ATOP),
+                placeholderView.getImageView().getColorFilter());
+    }
+
+    /**
+     * Checks that the image is the bitmap cached with the tint baked in, and nothing paints over it
+     */
+    private void assertTinted(PlaceholderView placeholderView, int resourceId, int tint) {
+        ImageView imageView = placeholderView.getImageView();
+        Drawable expected = DrawableCache.get(placeholderView.getContext(), resourceId, tint, 0, 0);
+
+        assertSame(expected.getConstantState(), imageView.getDrawable().getConstantState());
+        assertNull(ImageViewCompat.getImageTintList(imageView));
+        assertNull(imageView.getColorFilter());
+    }
+}
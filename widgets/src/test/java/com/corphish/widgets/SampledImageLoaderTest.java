@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that images decoded downsampled are shown at the size they would be without sampling
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class SampledImageLoaderTest {
+    private static final int IMAGE = android.R.drawable.ic_dialog_info;
+
+    @Test
+    public void samplesByPowersOfTwo() {
+        assertEquals(1, SampledImageLoader.sampleSize(400, 300, 0, 0));
+        assertEquals(1, SampledImageLoader.sampleSize(400, 300, 300, 300));
+        assertEquals(2, SampledImageLoader.sampleSize(400, 300, 200, 100));
+        assertEquals(4, SampledImageLoader.sampleSize(400, 300, 100, 0));
+    }
+
+    @Test
+    public void lowersDensityBySampleSize() {
+        assertEquals(480, SampledImageLoader.sampledDensity(480, 1));
+        assertEquals(120, SampledImageLoader.sampledDensity(480, 4));
+        assertEquals(53, SampledImageLoader.sampledDensity(420, 8));
+        assertEquals(1, SampledImageLoader.sampledDensity(160, 512));
+    }
+
+    @Test
+    public void keepsIntrinsicSize() {
+        Resources resources = RuntimeEnvironment.application.getResources();
+        Bitmap full = SampledImageLoader.decode(resources, IMAGE, 0, 0);
+        Bitmap sampled = SampledImageLoader.decode(resources, IMAGE, full.getWidth() / 2, full.getHeight() / 2);
+        assertTrue(sampled.getWidth() < full.getWidth());
+
+        BitmapDrawable fullDrawable = new BitmapDrawable(resources, full);
+        BitmapDrawable sampledDrawable = new BitmapDrawable(resources, sampled);
+
+        // Sampling rounds the size in pixels, which may be off by one pixel of the sampled bitmap
+        assertEquals(fullDrawable.getIntrinsicWidth(), sampledDrawable.getIntrinsicWidth(), 2);
+        assertEquals(fullDrawable.getIntrinsicHeight(), sampledDrawable.getIntrinsicHeight(), 2);
+    }
+}
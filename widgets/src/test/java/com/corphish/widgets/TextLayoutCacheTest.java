@@ -0,0 +1,174 @@
+/*
+ *
+ * Copyright (C) 2018 Avinaba Dalal <d97.avinaba@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.corphish.widgets;
+
+import android.graphics.Typeface;
+import android.text.SpannableString;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks what TextLayoutCache shares, and how it is bounded
+ */
+
+@RunWith(RobolectricTestRunner.class)
+public class TextLayoutCacheTest {
+    private static final int WIDTH = 200;
+
+    private TextPaint paint;
+
+    @Before
+    public void setUp() {
+        TextLayoutCache.setMaxSize(TextLayoutCache.DEFAULT_MAX_SIZE);
+        TextLayoutCache.clear();
+        paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(14);
+    }
+
+    @After
+    public void tearDown() {
+        TextLayoutCache.setMaxSize(TextLayoutCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    public void sharesLayoutOfSameKey() {
+        StaticLayout layout = TextLayoutCache.obtain("Price", paint, WIDTH);
+
+        assertSame(layout, TextLayoutCache.obtain("Price", new TextPaint(paint), WIDTH));
+        assertEquals(1, TextLayoutCache.getHitCount());
+        assertEquals(1, TextLayoutCache.getMissCount());
+    }
+
+    @Test
+    public void keysByTextAndWidth() {
+        StaticLayout layout = TextLayoutCache.obtain("Price", paint, WIDTH);
+
+        assertNotSame(layout, TextLayoutCache.obtain("Status", paint, WIDTH));
+        assertNotSame(layout, TextLayoutCache.obtain("Price", paint, WIDTH / 2));
+        assertEquals(3, TextLayoutCache.getMissCount());
+    }
+
+    @Test
+    public void keysByPaintProperties() {
+        StaticLayout layout = TextLayoutCache.obtain("Price", paint, WIDTH);
+
+        assertNotSame(layout, obtainWith(paint(14).withSize(20)));
+        assertNotSame(layout, obtainWith(paint(14).withTypeface(Typeface.DEFAULT_BOLD)));
+        assertNotSame(layout, obtainWith(paint(14).withFlags(TextPaint.FAKE_BOLD_TEXT_FLAG)));
+        assertNotSame(layout, obtainWith(paint(14).withLocale(Locale.JAPAN)));
+
+        assertEquals(0, TextLayoutCache.getHitCount());
+        assertEquals(5, TextLayoutCache.getMissCount());
+        assertEquals(5, TextLayoutCache.size());
+    }
+
+    @Test
+    public void keepsOwnPaint() {
+        StaticLayout layout = TextLayoutCache.obtain("Price", paint, WIDTH);
+        paint.setTextSize(40);
+
+        assertNotSame(paint, layout.getPaint());
+        assertEquals(14, layout.getPaint().getTextSize(), 0);
+    }
+
+    @Test
+    public void doesNotCacheStyledText() {
+        SpannableString text = new SpannableString("Price");
+
+        assertNotSame(TextLayoutCache.obtain(text, paint, WIDTH), TextLayoutCache.obtain(text, paint, WIDTH));
+        assertEquals(0, TextLayoutCache.size());
+    }
+
+    @Test
+    public void dropsLeastRecentlyUsed() {
+        TextLayoutCache.setMaxSize(2);
+        StaticLayout price = TextLayoutCache.obtain("Price", paint, WIDTH);
+        StaticLayout status = TextLayoutCache.obtain("Status", paint, WIDTH);
+
+        // Uses "Price" again, so "Status" is the one dropped for "Stock"
+        assertSame(price, TextLayoutCache.obtain("Price", paint, WIDTH));
+        TextLayoutCache.obtain("Stock", paint, WIDTH);
+        assertEquals(2, TextLayoutCache.size());
+
+        assertSame(price, TextLayoutCache.obtain("Price", paint, WIDTH));
+        assertNotSame(status, TextLayoutCache.obtain("Status", paint, WIDTH));
+        assertEquals(2, TextLayoutCache.getHitCount());
+        assertEquals(4, TextLayoutCache.getMissCount());
+    }
+
+    @Test
+    public void cachesDesiredWidthsApart() {
+        int width = TextLayoutCache.desiredWidth("Price", paint);
+
+        assertEquals(width, TextLayoutCache.desiredWidth("Price", paint));
+        assertEquals(0, TextLayoutCache.size());
+        assertEquals(1, TextLayoutCache.getHitCount());
+        assertEquals(1, TextLayoutCache.getMissCount());
+    }
+
+    private StaticLayout obtainWith(TextPaint paint) {
+        return TextLayoutCache.obtain("Price", paint, WIDTH);
+    }
+
+    private static PaintBuilder paint(float textSize) {
+        return new PaintBuilder(textSize);
+    }
+
+    /**
+     * Paint like the one of the test, with one property changed
+     */
+    private static final class PaintBuilder extends TextPaint {
+        PaintBuilder(float textSize) {
+            super(TextPaint.ANTI_ALIAS_FLAG);
+            setTextSize(textSize);
+        }
+
+        PaintBuilder withSize(float textSize) {
+            setTextSize(textSize);
+            return this;
+        }
+
+        PaintBuilder withTypeface(Typeface typeface) {
+            setTypeface(typeface);
+            return this;
+        }
+
+        PaintBuilder withFlags(int flags) {
+            setFlags(getFlags() | flags);
+            return this;
+        }
+
+        PaintBuilder withLocale(Locale locale) {
+            setTextLocale(locale);
+            return this;
+        }
+    }
+}